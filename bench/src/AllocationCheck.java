@@ -0,0 +1,60 @@
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+// Quick check that steady-state solving allocates nothing, meant to run on every build
+// Each engine reuses one solver and one caller-supplied grid: after WARMUP_PASSES passes over the easy and hard
+// tiers, CHECKED_PASSES more passes are counted with the thread's allocation counter and must allocate 0 bytes.
+// Takes a few seconds, where the full SudokuBenchmark takes minutes.
+// Run from the project root: java AllocationCheck [corpusDir]
+// Exits with status 1 if any engine allocated.
+public class AllocationCheck {
+    private static final int WARMUP_PASSES = 20;
+    private static final int CHECKED_PASSES = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Consumes the results so the JIT cannot drop the solves
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        Path corpus = Path.of(args.length > 0 ? args[0] : "bench/corpus");
+        int[][][] easy = SudokuBenchmark.load(corpus.resolve("easy.txt"));
+        int[][][] hard = SudokuBenchmark.load(corpus.resolve("hard.txt"));
+        int[][][] puzzles = new int[easy.length + hard.length][][];
+        System.arraycopy(easy, 0, puzzles, 0, easy.length);
+        System.arraycopy(hard, 0, puzzles, easy.length, hard.length);
+
+        String[] names = {"dlx", "dlx-object", "bitboard"};
+        Solver[] solvers = {Solver.create("dlx"), new RMIT_Sudoku_Solver(new int[9][9], false),
+                Solver.create("bitboard")};
+        int[][] solution = new int[9][9];
+        boolean failed = false;
+        for (int e = 0; e < solvers.length; e++) {
+            for (int pass = 0; pass < WARMUP_PASSES; pass++) {
+                solveAll(solvers[e], puzzles, solution);
+            }
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int pass = 0; pass < CHECKED_PASSES; pass++) {
+                solveAll(solvers[e], puzzles, solution);
+            }
+            long bytes = THREADS.getCurrentThreadAllocatedBytes() - before;
+            long solves = (long) CHECKED_PASSES * puzzles.length;
+            System.out.printf("%-12s %8d solves %10d bytes %s%n", names[e], solves, bytes, bytes == 0 ? "OK" : "FAIL");
+            failed |= bytes != 0;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static void solveAll(Solver solver, int[][][] puzzles, int[][] solution) {
+        long solved = 0;
+        for (int[][] puzzle : puzzles) {
+            if (solver.solve(puzzle, solution)) {
+                solved++;
+            }
+        }
+        sink += solved;
+    }
+}
@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Benchmark harness for the solvers, meant to be the reference for every change to DancingLinks and friends
+// Run from the project root: java SudokuBenchmark [corpusDir] [nameFilter]
+//
+// Follows JMH's measurement model without the dependency (JMH refuses benchmarks in the default package, and the
+// solver classes are package-private there): each benchmark runs WARMUP_ITERATIONS discarded iterations, then
+// MEASUREMENT_ITERATIONS iterations of about one second each. It reports the mean time per operation with its
+// standard deviation, operations per second, and bytes allocated per operation read from the thread's allocation
+// counter (JMH's gc.alloc.rate.norm).
+// Benchmarks of the steady-state solve path (a reused solver writing into a caller-supplied grid) must allocate
+// nothing: if any of them reports 1 B/op or more, the run ends by listing them and exits with status 1.
+//
+// The corpus directory holds one 81-character puzzle per line ('.' for empty cells), in three tiers:
+// - easy.txt: unique puzzles the DLX search solves without branching (includes the active puzzle from Main)
+// - hard.txt: unique minimal puzzles that need branching (includes the "difficult" puzzle from Main)
+// - pathological.txt: well-known hard puzzles with the biggest search trees, the "extremely difficult" puzzle
+//   from Main, and two unsolvable one-digit edits of them that force an exhaustive search
+public class SudokuBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+    // Copies of easy + hard written to the batch benchmark's input file
+    private static final int BATCH_REPEAT = 25;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Consumes benchmark results so the JIT cannot drop the work that produced them
+    private static volatile long sink;
+
+    // One benchmark operation; index cycles through the puzzles of the workload
+    private interface Operation {
+        long run(int index) throws Exception;
+    }
+
+    private final String filter;
+    // Allocation-free benchmarks that allocated, with their bytes per operation
+    private final List<String> allocationFailures = new ArrayList<>();
+
+    private SudokuBenchmark(String filter) {
+        this.filter = filter;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path corpus = Path.of(args.length > 0 ? args[0] : "bench/corpus");
+        SudokuBenchmark bench = new SudokuBenchmark(args.length > 1 ? args[1] : "");
+        String[] tiers = {"easy", "hard", "pathological"};
+        List<int[][][]> puzzles = new ArrayList<>();
+        for (String tier : tiers) {
+            puzzles.add(load(corpus.resolve(tier + ".txt")));
+        }
+        int[][][] easy = puzzles.get(0);
+
+        System.out.printf("%-36s %14s %10s %14s %12s%n", "Benchmark", "ns/op", "+-", "ops/s", "B/op");
+
+        // Matrix construction, on the easy tier so the number of givens is typical
+        bench.measure("construct.DancingLinks", i -> new DancingLinks(easy[i % easy.length]).size(1));
+        bench.measure("construct.ArrayDancingLinks", i -> new ArrayDancingLinks(easy[i % easy.length]).size(1));
+        bench.measure("construct.RMIT_Sudoku_Solver", i -> new RMIT_Sudoku_Solver(easy[i % easy.length]).hashCode());
+        ArrayDancingLinks matrix = new ArrayDancingLinks(easy[0]);
+        bench.measure("reset.ArrayDancingLinks", i -> {
+            matrix.reset(easy[i % easy.length]);
+            return matrix.size(1);
+        });
+
+        // Solving with reused solvers, per tier and engine
+        int[][] solution = new int[9][9];
+        for (int t = 0; t < tiers.length; t++) {
+            int[][][] tier = puzzles.get(t);
+            for (String engine : new String[]{"dlx", "bitboard"}) {
+                Solver solver = Solver.create(engine);
+                bench.measure("solve." + tiers[t] + "." + engine, i -> solver.solve(tier[i % tier.length])[0][0]);
+                bench.measureAllocationFree("solve." + tiers[t] + "." + engine + "-into",
+                        i -> solver.solve(tier[i % tier.length], solution) ? 1 : 0);
+            }
+            // Every puzzle of the tier is cached after the first warmup pass, so this measures hits
+            Solver cached = new CachingSolver(Solver.create("dlx"), new SolutionCache(tier.length));
+            bench.measure("solve." + tiers[t] + ".cached", i -> cached.solve(tier[i % tier.length])[0][0]);
+            RMIT_Sudoku_Solver objectSolver = new RMIT_Sudoku_Solver(tier[0], false);
+            bench.measure("solve." + tiers[t] + ".dlx-object", i -> {
+                objectSolver.reset(tier[i % tier.length]);
+                return objectSolver.solve()[0][0];
+            });
+            bench.measureAllocationFree("solve." + tiers[t] + ".dlx-object-into",
+                    i -> objectSolver.solve(tier[i % tier.length], solution) ? 1 : 0);
+            RMIT_Sudoku_Solver restarting = new RMIT_Sudoku_Solver(tier[0]);
+            restarting.setRandomOrder(1, RestartSchedule.luby(RMIT_Sudoku_Solver.DEFAULT_RESTART_UNIT));
+            bench.measure("solve." + tiers[t] + ".dlx-restarts",
+                    i -> restarting.solve(tier[i % tier.length], solution) ? 1 : 0);
+            bench.measure("solveRacing." + tiers[t], i ->
+                    new RMIT_Sudoku_Solver(tier[i % tier.length]).solveRacing(ForkJoinPool.commonPool(), 4, i,
+                            RestartSchedule.luby(RMIT_Sudoku_Solver.DEFAULT_RESTART_UNIT))[0][0]);
+            bench.measure("solveParallel." + tiers[t], i ->
+                    new RMIT_Sudoku_Solver(tier[i % tier.length]).solveParallel(ForkJoinPool.commonPool(), 3)[0][0]);
+            RMIT_Sudoku_Solver counter = new RMIT_Sudoku_Solver(tier[0]);
+            bench.measure("unique." + tiers[t], i -> {
+                counter.reset(tier[i % tier.length]);
+                return counter.countSolutions(2);
+            });
+        }
+
+        // Adversarial inputs must be rejected before any search: a digit repeated in a row, and a cell whose row
+        // and column already hold every digit (an empty column that no given conflict shows)
+        int[][] conflicting = new int[9][9];
+        conflicting[0][0] = 5;
+        conflicting[0][8] = 5;
+        int[][] emptyCell = new int[9][9];
+        for (int k = 1; k < 9; k++) {
+            emptyCell[0][k] = k;
+        }
+        emptyCell[8][0] = 9;
+        RMIT_Sudoku_Solver rejecting = new RMIT_Sudoku_Solver(new int[9][9]);
+        int[][] rejected = new int[9][9];
+        bench.measureAllocationFree("reject.conflicting", i -> rejecting.solve(conflicting, rejected) ? 1 : 0);
+        bench.measureAllocationFree("reject.emptyColumn", i -> rejecting.solve(emptyCell, rejected) ? 1 : 0);
+
+        // One random minimal puzzle: a full grid plus one uniqueness check per cell
+        PuzzleGenerator generator = new PuzzleGenerator(1);
+        bench.measure("generate.minimal", i -> generator.next()[0][0]);
+
+        // Batch throughput over easy + hard, all cores; one operation is one puzzle
+        Path input = Files.createTempFile("sudoku-bench", ".txt");
+        Path output = Files.createTempFile("sudoku-bench", ".out");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int r = 0; r < BATCH_REPEAT; r++) {
+                for (int t = 0; t < 2; t++) {
+                    for (String line : Files.readAllLines(corpus.resolve(tiers[t] + ".txt"))) {
+                        text.append(line).append('\n');
+                    }
+                }
+            }
+            Files.writeString(input, text);
+            int batchSize = BATCH_REPEAT * (puzzles.get(0).length + puzzles.get(1).length);
+            int threads = Runtime.getRuntime().availableProcessors();
+            bench.measureBatch("batch.dlx", batchSize, i -> BatchSolver.solveFile(input, output, threads, "dlx", null));
+            bench.measureBatch("batch.bitboard", batchSize,
+                    i -> BatchSolver.solveFile(input, output, threads, "bitboard", null));
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+
+        if (!bench.allocationFailures.isEmpty()) {
+            System.out.println("Allocation check failed: " + String.join(", ", bench.allocationFailures));
+            System.exit(1);
+        }
+    }
+
+    // Reads a corpus tier into 9x9 grids
+    static int[][][] load(Path file) throws IOException {
+        List<int[][]> grids = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int[][] grid = new int[9][9];
+            for (int i = 0; i < 81; i++) {
+                char ch = line.charAt(i);
+                grid[i / 9][i % 9] = ch >= '1' && ch <= '9' ? ch - '0' : 0;
+            }
+            grids.add(grid);
+        }
+        return grids.toArray(new int[0][][]);
+    }
+
+    // Like measure, for an operation that must not allocate once warmed up; a failure is recorded for the end
+    // of the run
+    private void measureAllocationFree(String name, Operation op) throws Exception {
+        double bytesPerOp = measure(name, op);
+        if (bytesPerOp >= 1) {
+            allocationFailures.add(String.format("%s (%.0f B/op)", name, bytesPerOp));
+        }
+    }
+
+    // Runs warmup and measurement iterations of an operation on the calling thread and prints one result line
+    // @return The bytes allocated per operation, 0 if the benchmark is filtered out
+    private double measure(String name, Operation op) throws Exception {
+        if (!name.contains(filter)) {
+            return 0;
+        }
+        double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+        long totalOps = 0;
+        long totalBytes = 0;
+        int index = 0;
+        for (int it = -WARMUP_ITERATIONS; it < MEASUREMENT_ITERATIONS; it++) {
+            long ops = 0;
+            long result = 0;
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                result += op.run(index++);
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            sink += result;
+            if (it >= 0) {
+                nanosPerOp[it] = (double) elapsed / ops;
+                totalOps += ops;
+                totalBytes += bytes;
+            }
+        }
+        double bytesPerOp = (double) totalBytes / totalOps;
+        print(name, nanosPerOp, bytesPerOp);
+        return bytesPerOp;
+    }
+
+    // Like measure, for a call that processes opsPerCall puzzles on worker threads; allocation is not reported
+    // because it happens on threads that are gone once the call returns
+    private void measureBatch(String name, int opsPerCall, Operation call) throws Exception {
+        if (!name.contains(filter)) {
+            return;
+        }
+        double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+        for (int it = -WARMUP_ITERATIONS; it < MEASUREMENT_ITERATIONS; it++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += call.run(0);
+                ops += opsPerCall;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            if (it >= 0) {
+                nanosPerOp[it] = (double) elapsed / ops;
+            }
+        }
+        print(name, nanosPerOp, Double.NaN);
+    }
+
+    private static void print(String name, double[] nanosPerOp, double bytesPerOp) {
+        double mean = 0;
+        for (double v : nanosPerOp) {
+            mean += v;
+        }
+        mean /= nanosPerOp.length;
+        double variance = 0;
+        for (double v : nanosPerOp) {
+            variance += (v - mean) * (v - mean);
+        }
+        double stddev = Math.sqrt(variance / (nanosPerOp.length - 1));
+        String alloc = Double.isNaN(bytesPerOp) ? "-" : String.format("%.0f", bytesPerOp);
+        System.out.printf("%-36s %14.1f %10.1f %14.0f %12s%n", name, mean, stddev, 1e9 / mean, alloc);
+    }
+}
@@ -0,0 +1,478 @@
+// Dancing Links matrix stored in flat int arrays instead of an object graph
+// Holds any sparse exact-cover matrix built with ExactCoverBuilder: primary columns must be covered exactly once,
+// secondary columns at most once. Node ids follow the DLXMatrix layout: 0 is the root, 1..numPrimary are the
+// primary column headers, numPrimary + 1..numCols the secondary ones, then the 1s of every row in row order.
+// Following a link is an array load, so the hot cover/uncover loops touch a few contiguous arrays instead of
+// chasing references.
+// The classic Sudoku matrix of an N x N board (N = boxSize^2) has N^3 rows (cell, number) and 4 * N^2 columns
+// (cell, row-number, column-number and box-number constraints); the 4 nodes of its row i are
+// numCols + 1 + 4 * i .. numCols + 4 + 4 * i.
+class ArrayDancingLinks implements DLXMatrix {
+    // Largest supported box size (25x25 boards)
+    static final int MAX_BOX_SIZE = 5;
+
+    // Empty-board Sudoku matrices shared by every instance of the same board size. They are built once and never
+    // covered, so each puzzle starts from a copy of their links instead of rebuilding the matrix.
+    // The 9x9 template is built eagerly; the other sizes on first use.
+    private static final ArrayDancingLinks[] TEMPLATES = new ArrayDancingLinks[MAX_BOX_SIZE + 1];
+    private static final ArrayDancingLinks TEMPLATE_9X9 = template(3);
+
+    // The empty matrix this one was copied from and reset() restores; null for a template itself
+    private final ArrayDancingLinks template;
+    // Matrix dimensions; columns 1..numPrimary are primary, numPrimary + 1..numCols secondary
+    private final int numRows;
+    private final int numPrimary;
+    private final int numCols;
+    private final int numNodes;
+
+    // Links of every node, indexed by node id
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    // Column header id of every node (headers point to themselves); never changes, shared with the template
+    private final int[] column;
+    // Matrix row of every node (-1 for the root and the headers); never changes, shared with the template
+    private final int[] row;
+    // First node of every row; never changes, shared with the template
+    private final int[] rowStart;
+    // Number of 1s left in each column, indexed by column header id
+    private final int[] size;
+    // Largest primary column size of the empty matrix (N for Sudoku)
+    private final int maxSize;
+    // Uncovered primary columns grouped by size, so the smallest column is found without walking the header list
+    // Ids 1..numPrimary are the columns, id bucket(s) = numCols + 1 + s is the head of the circular list of columns
+    // of size s. Cover and uncover move a column to its new bucket whenever its size changes.
+    private final int[] bucketNext;
+    private final int[] bucketPrev;
+    // Counters updated by cover/uncover when SearchStats.ENABLED, null for none
+    private SearchStats stats;
+
+    // Constructor: Builds an empty matrix from the rows collected by an ExactCoverBuilder
+    // @param numPrimary Number of primary columns
+    // @param numCols Number of columns, primary and secondary
+    // @param rowOffsets Index in columns of the first column of every row, plus the total count at the end
+    // @param columns Column header ids (1-based) of every row, row after row
+    ArrayDancingLinks(int numPrimary, int numCols, int[] rowOffsets, int[] columns) {
+        template = null;
+        this.numPrimary = numPrimary;
+        this.numCols = numCols;
+        numRows = rowOffsets.length - 1;
+        numNodes = 1 + numCols + columns.length;
+        left = new int[numNodes];
+        right = new int[numNodes];
+        up = new int[numNodes];
+        down = new int[numNodes];
+        column = new int[numNodes];
+        row = new int[numNodes];
+        rowStart = new int[numRows];
+        size = new int[numCols + 1];
+        initializeMatrix();
+        setupRows(rowOffsets, columns);
+        int largest = 0;
+        for (int c = 1; c <= numPrimary; c++) {
+            largest = Math.max(largest, size[c]);
+        }
+        maxSize = largest;
+        bucketNext = new int[numCols + maxSize + 2];
+        bucketPrev = new int[numCols + maxSize + 2];
+        initializeBuckets();
+    }
+
+    // Constructor: Copies the Sudoku template of the puzzle's size and covers the columns of the pre-filled cells
+    // Givens that conflict with earlier ones are skipped; use reset(int[][]) to find out about them
+    // @param matrix The initial N x N Sudoku grid (N = 4, 9, 16 or 25), where 0 represents empty cells
+    public ArrayDancingLinks(int[][] matrix) {
+        this(template(boxSizeOf(matrix.length)));
+        handlePreFilledEntries(matrix);
+    }
+
+    // Constructor: Copies the current state of another matrix, covered columns included
+    // Used to give each parallel search task its own matrix to cover and uncover
+    // @param other The matrix to copy
+    public ArrayDancingLinks(ArrayDancingLinks other) {
+        template = other.template != null ? other.template : other;
+        numRows = other.numRows;
+        numPrimary = other.numPrimary;
+        numCols = other.numCols;
+        numNodes = other.numNodes;
+        left = other.left.clone();
+        right = other.right.clone();
+        up = other.up.clone();
+        down = other.down.clone();
+        column = other.column;
+        row = other.row;
+        rowStart = other.rowStart;
+        size = other.size.clone();
+        maxSize = other.maxSize;
+        bucketNext = other.bucketNext.clone();
+        bucketPrev = other.bucketPrev.clone();
+    }
+
+    // Returns the box size of an N x N board
+    // @param n Board size
+    // @return sqrt(n)
+    // @throws IllegalArgumentException if n is not the square of a supported box size
+    static int boxSizeOf(int n) {
+        for (int b = 2; b <= MAX_BOX_SIZE; b++) {
+            if (b * b == n) {
+                return b;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported board size: " + n + "x" + n);
+    }
+
+    // Returns the shared empty-board Sudoku template of a box size, building it on first use
+    private static ArrayDancingLinks template(int boxSize) {
+        if (boxSize == 3 && TEMPLATE_9X9 != null) {
+            return TEMPLATE_9X9;
+        }
+        synchronized (TEMPLATES) {
+            if (TEMPLATES[boxSize] == null) {
+                TEMPLATES[boxSize] = sudokuRows(boxSize).buildTemplate();
+            }
+            return TEMPLATES[boxSize];
+        }
+    }
+
+    // Collects the N^3 rows of the classic Sudoku matrix
+    // Row i places number (i % N) + 1 in cell i / N, the same numbering as DancingLinks
+    private static ExactCoverBuilder sudokuRows(int boxSize) {
+        int n = boxSize * boxSize;
+        int cells = n * n;
+        ExactCoverBuilder builder = new ExactCoverBuilder(4 * cells, 0);
+        for (int i = 0; i < n * cells; i++) {
+            int r = i / cells;            // Row of the Sudoku grid
+            int c = (i / n) % n;          // Column of the Sudoku grid
+            int d = i % n;                // Number to place, 0-based
+            int b = (r / boxSize) * boxSize + (c / boxSize);
+            builder.addRow(r * n + c,                   // Cell constraint
+                    cells + r * n + d,                  // Row-number constraint
+                    2 * cells + c * n + d,              // Column-number constraint
+                    3 * cells + b * n + d);             // Box-number constraint
+        }
+        return builder;
+    }
+
+    // Restores the empty matrix from the template: every row present, every column uncovered
+    // Cover/uncover only ever rewrite the left/right links of headers, so only that prefix is copied
+    @Override
+    public void reset() {
+        if (template == null) {
+            // Templates are never covered
+            return;
+        }
+        System.arraycopy(template.left, 0, left, 0, numCols + 1);
+        System.arraycopy(template.right, 0, right, 0, numCols + 1);
+        System.arraycopy(template.up, 0, up, 0, numNodes);
+        System.arraycopy(template.down, 0, down, 0, numNodes);
+        System.arraycopy(template.size, 0, size, 0, numCols + 1);
+        System.arraycopy(template.bucketNext, 0, bucketNext, 0, bucketNext.length);
+        System.arraycopy(template.bucketPrev, 0, bucketPrev, 0, bucketPrev.length);
+    }
+
+    // Restores the empty board and applies the givens of another puzzle (Sudoku matrices only)
+    // @param matrix The initial Sudoku grid, the same size as this matrix, where 0 represents empty cells
+    // @return false if a given conflicts with an earlier one (it is then skipped), true otherwise
+    public boolean reset(int[][] matrix) {
+        int n = matrix.length;
+        if (numRows != n * n * n || numCols != 4 * n * n) {
+            throw new IllegalArgumentException("Not a Sudoku matrix for a " + n + "x" + n + " grid");
+        }
+        reset();
+        return handlePreFilledEntries(matrix);
+    }
+
+    // Links the root and the primary column headers into a circular list; secondary headers stay out of it
+    // (each linked to itself), so the search never has to cover them
+    private void initializeMatrix() {
+        for (int c = 0; c <= numCols; c++) {
+            if (c <= numPrimary) {
+                left[c] = c == 0 ? numPrimary : c - 1;
+                right[c] = c == numPrimary ? 0 : c + 1;
+            } else {
+                left[c] = c;
+                right[c] = c;
+            }
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            row[c] = -1;
+        }
+    }
+
+    // Creates the nodes of every row, appends them to their columns and links each row into a circular list
+    private void setupRows(int[] rowOffsets, int[] columns) {
+        int node = numCols + 1;
+        for (int i = 0; i < numRows; i++) {
+            int first = node;
+            rowStart[i] = first;
+            for (int k = rowOffsets[i]; k < rowOffsets[i + 1]; k++) {
+                appendNode(node++, columns[k], i);
+            }
+            // Connect the nodes of the row horizontally into a circular list
+            for (int k = first; k < node; k++) {
+                left[k] = k == first ? node - 1 : k - 1;
+                right[k] = k == node - 1 ? first : k + 1;
+            }
+        }
+    }
+
+    // Appends a node at the bottom of a column; the header's up link is the current bottom
+    private void appendNode(int node, int col, int rowNumber) {
+        column[node] = col;
+        row[node] = rowNumber;
+        up[node] = up[col];
+        down[node] = col;
+        down[up[col]] = node;
+        up[col] = node;
+        size[col]++;
+    }
+
+    // Puts every primary column in the bucket of its size, in header order so that ties start out broken like
+    // the header list. Secondary columns are linked to themselves, so unlinking them is a no-op.
+    private void initializeBuckets() {
+        for (int s = 0; s <= maxSize; s++) {
+            bucketNext[bucket(s)] = bucket(s);
+            bucketPrev[bucket(s)] = bucket(s);
+        }
+        for (int c = numPrimary + 1; c <= numCols; c++) {
+            bucketNext[c] = c;
+            bucketPrev[c] = c;
+        }
+        for (int c = numPrimary; c >= 1; c--) {
+            linkBucket(c, size[c]);
+        }
+    }
+
+    // Id of the head of the list of columns of a size
+    private int bucket(int s) {
+        return numCols + 1 + s;
+    }
+
+    // Inserts a column at the front of the bucket of a size
+    private void linkBucket(int c, int s) {
+        int head = bucket(s);
+        int first = bucketNext[head];
+        bucketNext[c] = first;
+        bucketPrev[c] = head;
+        bucketPrev[first] = c;
+        bucketNext[head] = c;
+    }
+
+    // Takes a column out of its bucket
+    private void unlinkBucket(int c) {
+        bucketNext[bucketPrev[c]] = bucketNext[c];
+        bucketPrev[bucketNext[c]] = bucketPrev[c];
+    }
+
+    // Covers the four columns of every pre-filled cell
+    // @param matrix The initial Sudoku grid, where 0 represents empty cells
+    // @return false if a given is out of range or its row was already ruled out by an earlier given (it is then
+    //         skipped)
+    private boolean handlePreFilledEntries(int[][] matrix) {
+        int n = matrix.length;
+        boolean consistent = true;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (matrix[i][j] < 0 || matrix[i][j] > n) {
+                    consistent = false;
+                } else if (matrix[i][j] != 0) {
+                    // Row (i, j, num)
+                    consistent &= selectRow((i * n + j) * n + matrix[i][j] - 1);
+                }
+            }
+        }
+        return consistent;
+    }
+
+    // Whether a row is still in the matrix: every one of its nodes is linked into its column, and its primary
+    // columns are uncovered (covering a column leaves its own nodes linked)
+    private boolean isLive(int first) {
+        int k = first;
+        do {
+            int col = column[k];
+            if (down[up[k]] != k || (col <= numPrimary && right[left[col]] != col)) {
+                return false;
+            }
+            k = right[k];
+        } while (k != first);
+        return true;
+    }
+
+    @Override
+    public boolean selectRow(int rowNumber) {
+        int first = rowStart[rowNumber];
+        if (!isLive(first)) {
+            return false;
+        }
+        int k = first;
+        do {
+            coverColumn(column[k]);
+            k = right[k];
+        } while (k != first);
+        return true;
+    }
+
+    @Override
+    public void unselectRow(int rowNumber) {
+        int first = rowStart[rowNumber];
+        int k = first;
+        do {
+            k = left[k];
+            uncoverColumn(column[k]);
+        } while (k != first);
+    }
+
+    @Override
+    public boolean excludeRow(int rowNumber) {
+        int first = rowStart[rowNumber];
+        if (!isLive(first)) {
+            return false;
+        }
+        removeRow(first);
+        return true;
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void coverColumn(int c) {
+        // Remove the column header from the header list and from its size bucket (no-ops for secondary columns,
+        // whose links point to themselves)
+        left[right[c]] = left[c];
+        right[left[c]] = right[c];
+        unlinkBucket(c);
+
+        // Remove every row of the column from the other columns it appears in
+        int removed = 0;
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                int col = column[j];
+                if (col <= numPrimary) {
+                    unlinkBucket(col);
+                    linkBucket(col, --size[col]);
+                } else {
+                    size[col]--;
+                }
+                removed++;
+            }
+        }
+        if (SearchStats.ENABLED && stats != null) {
+            stats.coverCalls++;
+            stats.linkUpdates += 2 + 2 * removed;
+        }
+    }
+
+    @Override
+    public void uncoverColumn(int c) {
+        // Restore the rows bottom to top, each row right to left, in the reverse order of coverColumn
+        int restored = 0;
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                int col = column[j];
+                if (col <= numPrimary) {
+                    unlinkBucket(col);
+                    linkBucket(col, ++size[col]);
+                } else {
+                    size[col]++;
+                }
+                up[down[j]] = j;
+                down[up[j]] = j;
+                restored++;
+            }
+        }
+
+        // Restore the column header in the header list and in the bucket of its size (unchanged while covered)
+        left[right[c]] = c;
+        right[left[c]] = c;
+        if (c <= numPrimary) {
+            linkBucket(c, size[c]);
+        }
+        if (SearchStats.ENABLED && stats != null) {
+            stats.uncoverCalls++;
+            stats.linkUpdates += 2 + 2 * restored;
+        }
+    }
+
+    @Override
+    public void removeRow(int node) {
+        int j = node;
+        int removed = 0;
+        do {
+            up[down[j]] = up[j];
+            down[up[j]] = down[j];
+            int col = column[j];
+            if (col <= numPrimary) {
+                unlinkBucket(col);
+                linkBucket(col, --size[col]);
+            } else {
+                size[col]--;
+            }
+            removed++;
+            j = right[j];
+        } while (j != node);
+        if (SearchStats.ENABLED && stats != null) {
+            stats.linkUpdates += 2 * removed;
+        }
+    }
+
+    // Returns the first column of the smallest non-empty bucket: at most maxSize + 1 bucket heads are read, and a
+    // column of size 0 (a dead end) is returned from the first one
+    @Override
+    public int getSmallestColumn() {
+        for (int head = bucket(0); head <= bucket(maxSize); head++) {
+            if (bucketNext[head] != head) {
+                return bucketNext[head];
+            }
+        }
+        return ROOT;
+    }
+
+    // The bucket lists end at their head, whose id lies above the column ids
+    @Override
+    public int nextOfSameSize(int column) {
+        int next = bucketNext[column];
+        return next > numCols ? ROOT : next;
+    }
+
+    @Override
+    public int left(int node) {
+        return left[node];
+    }
+
+    @Override
+    public int right(int node) {
+        return right[node];
+    }
+
+    @Override
+    public int up(int node) {
+        return up[node];
+    }
+
+    @Override
+    public int down(int node) {
+        return down[node];
+    }
+
+    @Override
+    public int column(int node) {
+        return column[node];
+    }
+
+    @Override
+    public int rowNumber(int node) {
+        return row[node];
+    }
+
+    @Override
+    public int size(int c) {
+        return size[c];
+    }
+}
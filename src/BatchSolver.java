@@ -0,0 +1,305 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Solves a file of puzzles in bulk: one 81-character line per puzzle ('1'-'9' for givens, '0' or '.' for empty
+// cells), one 81-character solution line per puzzle written in input order. A puzzle without a solution is
+// written as 81 '0's so line numbers of the input and output files always match.
+// An input in the PackedPuzzles binary format is detected by its header and gets a packed output file: its fixed
+// 41-byte records are handed to the workers as slices of the mapped file, without parsing, and a puzzle without a
+// solution is written as an all-zero record.
+// Usage: java BatchSolver <input> <output> [threads] [dlx|bitboard]
+public class BatchSolver {
+    // Number of cells (and characters) per puzzle
+    private static final int CELLS = 81;
+    // Bytes per output line: 81 digits + '\n'
+    private static final int LINE_BYTES = CELLS + 1;
+    // Puzzles handed to a worker at a time; big enough to amortize task overhead, small enough to balance load
+    private static final int BLOCK_SIZE = 4096;
+    // Size of each memory-mapped window of the input file
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    // Records per memory-mapped window of a packed input file
+    private static final int WINDOW_RECORDS = (int) (MAP_WINDOW / PackedPuzzles.RECORD_BYTES);
+    // Minimum time between two progress lines
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+
+    // Each worker thread takes its solver of the chosen engine from SolverPool and keeps one puzzle and one
+    // solution grid, all reused for every puzzle it gets
+    private final String engine;
+    private static final ThreadLocal<int[][]> GRID = ThreadLocal.withInitial(() -> new int[9][9]);
+    private static final ThreadLocal<int[][]> SOLUTION = ThreadLocal.withInitial(() -> new int[9][9]);
+
+    private final ExecutorService workers;
+    // Blocks submitted but not yet written, oldest first; bounded so memory stays flat on huge inputs
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final int maxPending;
+    private final FileChannel out;
+    // Where progress lines go, null for none
+    private final PrintStream progress;
+
+    // Puzzle cells of the block currently being filled, one byte (0-9) per cell
+    private byte[] block = new byte[BLOCK_SIZE * CELLS];
+    private int blockCount;
+
+    // Bytes per puzzle of the output: a text line, or a packed record for packed input
+    private int outputBytes = LINE_BYTES;
+    private long puzzlesWritten;
+    private long startTime;
+    private long lastReport;
+
+    private BatchSolver(FileChannel out, int threads, String engine, PrintStream progress) {
+        this.out = out;
+        this.progress = progress;
+        this.engine = engine;
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.maxPending = threads * 4;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java BatchSolver <input> <output> [threads] [dlx|bitboard]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String engine = args.length > 3 ? args[3] : "dlx";
+        long solved = solveFile(Path.of(args[0]), Path.of(args[1]), threads, engine);
+        System.out.println("Done: " + solved + " puzzles");
+    }
+
+    // Solves every puzzle of the input file and writes the solutions to the output file
+    // @param input File with one 81-character puzzle per line
+    // @param output File to create (or overwrite) with one solution per line
+    // @param threads Number of worker threads
+    // @param engine Solver engine name, see Solver.create
+    // @return The number of puzzles processed
+    public static long solveFile(Path input, Path output, int threads, String engine) throws IOException {
+        return solveFile(input, output, threads, engine, System.out);
+    }
+
+    // Same as solveFile(input, output, threads, engine), reporting progress to a given stream
+    // @param progress Stream for progress and throughput lines, or null to run silently
+    public static long solveFile(Path input, Path output, int threads, String engine, PrintStream progress)
+            throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            BatchSolver batch = new BatchSolver(out, threads, engine, progress);
+            try {
+                batch.run(in);
+            } finally {
+                batch.workers.shutdownNow();
+            }
+            return batch.puzzlesWritten;
+        }
+    }
+
+    // Maps the input window by window, parses complete lines and streams blocks through the workers
+    private void run(FileChannel in) throws IOException {
+        startTime = System.nanoTime();
+        lastReport = startTime;
+        if (PackedPuzzles.isPacked(in)) {
+            runPacked(in);
+            return;
+        }
+        long fileSize = in.size();
+        long position = 0;
+        long lineNumber = 1;
+        while (position < fileSize) {
+            long length = Math.min(MAP_WINDOW, fileSize - position);
+            boolean last = position + length == fileSize;
+            MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            int cells = 0;
+            int lineStart = 0;
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                byte ch = window.get(i);
+                if (ch == '\n') {
+                    endLine(cells, lineNumber++);
+                    cells = 0;
+                    lineStart = i + 1;
+                } else if (ch != '\r') {
+                    if (cells == CELLS) {
+                        throw new IllegalArgumentException("Line " + lineNumber + " has more than 81 cells");
+                    }
+                    block[blockCount * CELLS + cells++] = parseCell(ch, lineNumber);
+                }
+            }
+            if (last) {
+                // Last line without a trailing newline
+                endLine(cells, lineNumber);
+                position = fileSize;
+            } else if (lineStart == 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + " is longer than the map window");
+            } else {
+                // Re-map from the start of the incomplete line
+                position += lineStart;
+            }
+        }
+        if (blockCount > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+        report(true);
+    }
+
+    // Maps a packed input window by window and streams slices of BLOCK_SIZE records through the workers
+    private void runPacked(FileChannel in) throws IOException {
+        long count = PackedPuzzles.readHeader(in);
+        outputBytes = PackedPuzzles.RECORD_BYTES;
+        ByteBuffer header = PackedPuzzles.header(count);
+        while (header.hasRemaining()) {
+            out.write(header);
+        }
+        for (long first = 0; first < count; first += WINDOW_RECORDS) {
+            int records = (int) Math.min(WINDOW_RECORDS, count - first);
+            MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY,
+                    PackedPuzzles.HEADER_BYTES + first * PackedPuzzles.RECORD_BYTES,
+                    (long) records * PackedPuzzles.RECORD_BYTES);
+            for (int start = 0; start < records; start += BLOCK_SIZE) {
+                while (pending.size() >= maxPending) {
+                    writeOldest();
+                }
+                int offset = start * PackedPuzzles.RECORD_BYTES;
+                int size = Math.min(BLOCK_SIZE, records - start);
+                pending.add(workers.submit(() -> solvePackedBlock(window, offset, size)));
+            }
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+        report(true);
+    }
+
+    // Converts one input character to a cell value, 0 for empty
+    private static byte parseCell(byte ch, long lineNumber) {
+        if (ch >= '1' && ch <= '9') {
+            return (byte) (ch - '0');
+        }
+        if (ch == '0' || ch == '.') {
+            return 0;
+        }
+        throw new IllegalArgumentException("Line " + lineNumber + " has invalid character '" + (char) ch + "'");
+    }
+
+    // Accepts a finished line of the current block; blank lines are skipped
+    private void endLine(int cells, long lineNumber) throws IOException {
+        if (cells == 0) {
+            return;
+        }
+        if (cells != CELLS) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has " + cells + " cells, expected 81");
+        }
+        if (++blockCount == BLOCK_SIZE) {
+            submitBlock();
+        }
+    }
+
+    // Hands the current block to the workers, first writing finished blocks if too many are in flight
+    private void submitBlock() throws IOException {
+        while (pending.size() >= maxPending) {
+            writeOldest();
+        }
+        byte[] puzzles = block;
+        int count = blockCount;
+        pending.add(workers.submit(() -> solveBlock(puzzles, count)));
+        block = new byte[BLOCK_SIZE * CELLS];
+        blockCount = 0;
+    }
+
+    // Solves a block of puzzles with the calling worker's reused solver
+    // @return The solution lines of the block, LINE_BYTES per puzzle
+    private byte[] solveBlock(byte[] puzzles, int count) {
+        Solver solver = SolverPool.get(engine);
+        int[][] grid = GRID.get();
+        int[][] solution = SOLUTION.get();
+        byte[] lines = new byte[count * LINE_BYTES];
+        for (int p = 0; p < count; p++) {
+            int cell = p * CELLS;
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    grid[i][j] = puzzles[cell++];
+                }
+            }
+            boolean solved = solver.solve(grid, solution);
+            int at = p * LINE_BYTES;
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    lines[at++] = (byte) ('0' + (solved ? solution[i][j] : 0));
+                }
+            }
+            lines[at] = '\n';
+        }
+        return lines;
+    }
+
+    // Solves a block of packed records with the calling worker's reused solver
+    // The DLX solver decodes each record straight into its givens; other engines get the worker's grid
+    // @param records Mapped window of the input, shared by the workers (only read with absolute gets)
+    // @param offset Index of the block's first record in the window
+    // @return The packed solution records of the block, all-zero for puzzles without a solution
+    private byte[] solvePackedBlock(ByteBuffer records, int offset, int count) {
+        Solver solver = SolverPool.get(engine);
+        int[][] grid = GRID.get();
+        int[][] solution = SOLUTION.get();
+        byte[] solutions = new byte[count * PackedPuzzles.RECORD_BYTES];
+        for (int p = 0; p < count; p++) {
+            int at = offset + p * PackedPuzzles.RECORD_BYTES;
+            boolean solved;
+            if (solver instanceof RMIT_Sudoku_Solver) {
+                RMIT_Sudoku_Solver dlx = (RMIT_Sudoku_Solver) solver;
+                dlx.reset(records, at);
+                solved = dlx.solveInto(solution);
+            } else {
+                PackedPuzzles.decode(records, at, grid);
+                solved = solver.solve(grid, solution);
+            }
+            if (solved) {
+                PackedPuzzles.encode(solution, solutions, p * PackedPuzzles.RECORD_BYTES);
+            }
+        }
+        return solutions;
+    }
+
+    // Waits for the oldest block and appends its solutions to the output file
+    private void writeOldest() throws IOException {
+        byte[] lines;
+        try {
+            lines = pending.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a worker", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Worker failed", e.getCause());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        puzzlesWritten += lines.length / outputBytes;
+        report(false);
+    }
+
+    // Prints the number of puzzles written and the throughput, at most once per REPORT_INTERVAL_NANOS
+    private void report(boolean force) {
+        long now = System.nanoTime();
+        if (progress == null || (!force && now - lastReport < REPORT_INTERVAL_NANOS)) {
+            return;
+        }
+        lastReport = now;
+        double seconds = (now - startTime) / 1_000_000_000.0;
+        progress.printf("%d puzzles in %.1f s (%.0f puzzles/s)\n", puzzlesWritten, seconds,
+                seconds > 0 ? puzzlesWritten / seconds : 0.0);
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Arrays;
+
+// Solves 9x9 Sudoku with 9-bit candidate masks instead of an exact-cover matrix
+// Bit d - 1 of a row, column or box mask is set when digit d is already placed in that unit, so the candidates
+// of a cell are the digits missing from all three of its masks. Naked and hidden singles are placed until
+// nothing changes, then the empty cell with the fewest candidates is branched on (minimum remaining values).
+// Each search level works on its own copy of the state, so backtracking is just going back one level.
+class BitboardSolver implements Solver {
+    private static final int ALL_DIGITS = 0x1FF;
+
+    // Row, column and box (0-8) of each cell index (row * 9 + col)
+    private static final int[] CELL_ROW = new int[81];
+    private static final int[] CELL_COL = new int[81];
+    private static final int[] CELL_BOX = new int[81];
+    // The 9 cells of each of the 27 units: rows 0-8, columns 9-17, boxes 18-26
+    private static final int[][] UNITS = new int[27][9];
+
+    static {
+        for (int i = 0; i < 81; i++) {
+            int r = i / 9;
+            int c = i % 9;
+            int b = (r / 3) * 3 + (c / 3);
+            CELL_ROW[i] = r;
+            CELL_COL[i] = c;
+            CELL_BOX[i] = b;
+            UNITS[r][c] = i;
+            UNITS[9 + c][r] = i;
+            UNITS[18 + b][(r % 3) * 3 + (c % 3)] = i;
+        }
+    }
+
+    // State of every search level: a cell value (0 for empty) per cell and the placed-digit masks per unit
+    private final int[][] cells = new int[82][81];
+    private final int[][] rowMask = new int[82][9];
+    private final int[][] colMask = new int[82][9];
+    private final int[][] boxMask = new int[82][9];
+    // Number of empty cells at each level
+    private final int[] empty = new int[82];
+    // Level holding the solution after a successful search
+    private int solvedLevel;
+
+    private final int[][] result = new int[9][9];
+
+    @Override
+    public int[][] solve(int[][] puzzle) {
+        solve(puzzle, result);
+        return result;
+    }
+
+    @Override
+    public boolean solve(int[][] puzzle, int[][] solution) {
+        PuzzleValidator.checkShape(puzzle);
+        if (puzzle.length != 9) {
+            throw new IllegalArgumentException("BitboardSolver only solves 9x9 puzzles");
+        }
+        // Out-of-range givens would index past the masks, so they are rejected before load
+        boolean consistent = PuzzleValidator.hasValidGivens(puzzle) && load(puzzle);
+        int[] cellsSolved = consistent && search(0) ? cells[solvedLevel] : null;
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                solution[i][j] = cellsSolved != null ? cellsSolved[i * 9 + j] : puzzle[i][j];
+            }
+        }
+        return cellsSolved != null;
+    }
+
+    // Fills level 0 from the puzzle
+    // @return false if two givens conflict
+    private boolean load(int[][] puzzle) {
+        Arrays.fill(rowMask[0], 0);
+        Arrays.fill(colMask[0], 0);
+        Arrays.fill(boxMask[0], 0);
+        Arrays.fill(cells[0], 0);
+        empty[0] = 81;
+        for (int i = 0; i < 81; i++) {
+            int d = puzzle[i / 9][i % 9];
+            if (d != 0 && !place(0, i, d)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Candidate mask of an empty cell at a level
+    private int candidates(int level, int cell) {
+        return ALL_DIGITS & ~(rowMask[level][CELL_ROW[cell]] | colMask[level][CELL_COL[cell]]
+                | boxMask[level][CELL_BOX[cell]]);
+    }
+
+    // Places a digit in an empty cell at a level
+    // @return false if the digit is already placed in the cell's row, column or box
+    private boolean place(int level, int cell, int digit) {
+        int bit = 1 << (digit - 1);
+        if ((candidates(level, cell) & bit) == 0) {
+            return false;
+        }
+        cells[level][cell] = digit;
+        rowMask[level][CELL_ROW[cell]] |= bit;
+        colMask[level][CELL_COL[cell]] |= bit;
+        boxMask[level][CELL_BOX[cell]] |= bit;
+        empty[level]--;
+        return true;
+    }
+
+    // Propagates singles at a level, then branches on the empty cell with the fewest candidates
+    // @return true if a solution was found (stored at solvedLevel)
+    private boolean search(int level) {
+        if (!propagate(level)) {
+            return false;
+        }
+        if (empty[level] == 0) {
+            solvedLevel = level;
+            return true;
+        }
+
+        // Minimum remaining values: the empty cell with the fewest candidates (at least 2 after propagation)
+        int bestCell = -1;
+        int bestCount = 10;
+        int[] grid = cells[level];
+        for (int i = 0; i < 81 && bestCount > 2; i++) {
+            if (grid[i] == 0) {
+                int count = Integer.bitCount(candidates(level, i));
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCell = i;
+                }
+            }
+        }
+
+        int next = level + 1;
+        for (int cand = candidates(level, bestCell); cand != 0; cand &= cand - 1) {
+            copyLevel(level, next);
+            place(next, bestCell, Integer.numberOfTrailingZeros(cand) + 1);
+            if (search(next)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void copyLevel(int from, int to) {
+        System.arraycopy(cells[from], 0, cells[to], 0, 81);
+        System.arraycopy(rowMask[from], 0, rowMask[to], 0, 9);
+        System.arraycopy(colMask[from], 0, colMask[to], 0, 9);
+        System.arraycopy(boxMask[from], 0, boxMask[to], 0, 9);
+        empty[to] = empty[from];
+    }
+
+    // Places naked singles (cells with one candidate) and hidden singles (digits with one place in a unit)
+    // until neither rule applies
+    // @return false if some cell or some unit has run out of options
+    private boolean propagate(int level) {
+        int[] grid = cells[level];
+        boolean progress = true;
+        while (progress && empty[level] > 0) {
+            progress = false;
+
+            for (int i = 0; i < 81; i++) {
+                if (grid[i] == 0) {
+                    int cand = candidates(level, i);
+                    if (cand == 0) {
+                        return false;
+                    }
+                    if ((cand & (cand - 1)) == 0) {
+                        place(level, i, Integer.numberOfTrailingZeros(cand) + 1);
+                        progress = true;
+                    }
+                }
+            }
+
+            for (int u = 0; u < 27; u++) {
+                // Digits that are candidates in at least one / at least two empty cells of the unit
+                int once = 0;
+                int twice = 0;
+                int placed = 0;
+                int[] unit = UNITS[u];
+                for (int k = 0; k < 9; k++) {
+                    int cell = unit[k];
+                    if (grid[cell] == 0) {
+                        int cand = candidates(level, cell);
+                        twice |= once & cand;
+                        once |= cand;
+                    } else {
+                        placed |= 1 << (grid[cell] - 1);
+                    }
+                }
+                if ((once | placed) != ALL_DIGITS) {
+                    return false;
+                }
+                for (int hidden = once & ~twice; hidden != 0; hidden &= hidden - 1) {
+                    int bit = hidden & -hidden;
+                    for (int k = 0; k < 9; k++) {
+                        int cell = unit[k];
+                        if (grid[cell] == 0 && (candidates(level, cell) & bit) != 0) {
+                            place(level, cell, Integer.numberOfTrailingZeros(bit) + 1);
+                            progress = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+// Solver that answers repeated puzzles from a SolutionCache before falling back to another engine
+// Puzzles are looked up by their CanonicalForm, so a puzzle also hits when a transformation of it (transposed,
+// rows, columns, bands or stacks swapped, digits relabeled) was solved before; the cached solution is mapped back
+// through the inverse transformation. A hit costs one canonicalization and never touches the DLX matrix.
+// For a puzzle with several solutions a hit returns the solution found for the cached variant, which may differ
+// from the one the engine would find first.
+// Like every Solver an instance belongs to one thread, but the cache can be shared by the solvers of all threads.
+class CachingSolver implements Solver {
+    private final Solver engine;
+    private final SolutionCache cache;
+    private final CanonicalForm form = new CanonicalForm();
+    // Grid returned for cache hits, reused by the next call
+    private final int[][] result = new int[9][9];
+
+    // Constructor: Puts a cache in front of an engine
+    // @param engine Solver used on cache misses, e.g. new RMIT_Sudoku_Solver(new int[9][9])
+    // @param cache Cache to look up and fill; may be shared with other CachingSolvers
+    public CachingSolver(Solver engine, SolutionCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+    }
+
+    // Solves a puzzle from the cache if it or a transformation of it is cached, otherwise with the engine
+    // Boards other than 9x9, puzzles with invalid givens (which the engine rejects) and puzzles too symmetric to
+    // canonicalize cheaply go straight to the engine, so only valid puzzles reach the cache
+    // @return The solved grid (or the original puzzle if there is no solution or its givens are invalid); reused
+    //         by the next call
+    // @throws IllegalArgumentException if the puzzle is not an N x N grid of a supported size
+    @Override
+    public int[][] solve(int[][] puzzle) {
+        PuzzleValidator.checkShape(puzzle);
+        if (puzzle.length != 9 || !PuzzleValidator.hasValidGivens(puzzle) || !form.compute(puzzle)) {
+            return engine.solve(puzzle);
+        }
+        String key = form.key();
+        byte[] canonical = cache.get(key);
+        if (canonical == SolutionCache.NO_SOLUTION) {
+            for (int i = 0; i < 9; i++) {
+                System.arraycopy(puzzle[i], 0, result[i], 0, 9);
+            }
+            return result;
+        }
+        if (canonical != null) {
+            form.fromCanonical(canonical, result);
+            return result;
+        }
+
+        int[][] solution = engine.solve(puzzle);
+        if (Main.isValidSudoku(solution)) {
+            canonical = new byte[81];
+            form.toCanonical(solution, canonical);
+        } else {
+            canonical = SolutionCache.NO_SOLUTION;
+        }
+        cache.put(key, canonical);
+        return solution;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,13 @@
+// Flag shared between a caller and running searches; once cancelled, every search polling it stops at its next check
+class CancellationToken {
+    private volatile boolean cancelled;
+
+    // Asks every search using this token to stop
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,323 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Canonical form of a 9x9 puzzle under the Sudoku symmetries that preserve solvability: transposition, band and
+// stack permutations, row permutations within a band, column permutations within a stack, and digit relabeling.
+// Two puzzles have the same canonical form exactly when one is a transformation of the other, so a solution found
+// for one can be mapped to the other without searching again.
+//
+// The canonical puzzle is the smallest one, read row by row, over all 2 * 6^8 cell transformations, comparing
+// first the pattern of givens (blanks before givens) and then the digits relabeled in order of first appearance.
+// The pattern step only needs the 2 * 1296 column arrangements: for a fixed column arrangement the smallest
+// pattern sorts the rows of each band and then the bands. Only the arrangements tied on the pattern (usually a
+// handful) are compared on digits. Puzzles with so many ties that this would be slow are not canonicalized.
+//
+// One instance keeps its scratch arrays between calls, so each thread needs its own.
+class CanonicalForm {
+    // Number of cells
+    private static final int CELLS = 81;
+    // The 6 permutations of {0, 1, 2}, for bands, stacks, and rows or columns within one
+    private static final int[][] PERM3 = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+    // Upper bound on the tied transformations compared on digits before giving up on a puzzle
+    private static final int MAX_TIES = 2048;
+    // Column order that sorts each row's blanks first within a stack, used for lower bounds
+    private static final int SORTED = 6;
+
+    // The puzzle being canonicalized, transposed or not, as row-major cells
+    private final int[][] source = new int[2][CELLS];
+    // triple[t][s][k][r]: 3-bit pattern of givens of row r in stack s, columns ordered by PERM3[k], first column
+    // as the high bit; k == SORTED orders the row's own blanks first
+    private final int[][][][] triple = new int[2][3][SORTED + 1][9];
+    // Column arrangements tied for the smallest pattern, packed as t | stackPerm << 1 | k0 << 4 | k1 << 7 | k2 << 10
+    private final int[] ties = new int[2 * 1296];
+    private int tieCount;
+    // Smallest pattern found so far and the pattern last computed by comparePattern: the first two band keys
+    // in high, the last one in low
+    private long bestHigh;
+    private int bestLow;
+    private long high;
+    private int low;
+
+    // Canonical puzzle of the last successful compute(): 0 for blank, 1-9 for the relabeled givens
+    private final byte[] cells = new byte[CELLS];
+    // Transformation from the original puzzle to the canonical one: canonical cell (p, q) comes from original cell
+    // (rowPerm[p], colPerm[q]), transposed first if transposed is set, and digit d becomes label[d]
+    private boolean transposed;
+    private final int[] rowPerm = new int[9];
+    private final int[] colPerm = new int[9];
+    private final int[] label = new int[10];
+    // Inverse of label: digit[label[d]] == d
+    private final int[] digit = new int[10];
+
+    // Scratch for the transformation being tried
+    private final int[] tryRows = new int[9];
+    private final int[] tryCols = new int[9];
+    private final int[] tryLabel = new int[10];
+    private final int[] values = new int[9];
+    private final int[] bandKeys = new int[3];
+
+    // Computes the canonical form of a puzzle and the transformation that produces it
+    // @param puzzle A 9x9 grid, where 0 represents empty cells
+    // @return false if the puzzle has too many symmetric arrangements to canonicalize quickly (very sparse or
+    //         highly symmetric patterns); the form is then undefined
+    public boolean compute(int[][] puzzle) {
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                source[0][i * 9 + j] = puzzle[i][j];
+                source[1][j * 9 + i] = puzzle[i][j];
+            }
+        }
+        findSmallestPatterns();
+
+        // Compare every arrangement tied on the pattern on its digits
+        int compared = 0;
+        boolean found = false;
+        for (int n = 0; n < tieCount; n++) {
+            int tie = ties[n];
+            int t = tie & 1;
+            int[] stacks = PERM3[(tie >> 1) & 7];
+            for (int q = 0; q < 9; q++) {
+                tryCols[q] = stacks[q / 3] * 3 + PERM3[(tie >> (4 + 3 * (q / 3))) & 7][q % 3];
+            }
+            rowValues(t, tie);
+
+            // Bands and rows may only be reordered among equal patterns, which keeps the pattern minimal
+            for (int b = 0; b < 3; b++) {
+                bandKeys[b] = bandKey(b);
+            }
+            for (int bp = 0; bp < 6; bp++) {
+                int[] bands = PERM3[bp];
+                if (bandKeys[bands[0]] > bandKeys[bands[1]] || bandKeys[bands[1]] > bandKeys[bands[2]]) {
+                    continue;
+                }
+                for (int r0 = 0; r0 < 6; r0++) {
+                    if (!sortedRows(bands[0], r0)) {
+                        continue;
+                    }
+                    for (int r1 = 0; r1 < 6; r1++) {
+                        if (!sortedRows(bands[1], r1)) {
+                            continue;
+                        }
+                        for (int r2 = 0; r2 < 6; r2++) {
+                            if (!sortedRows(bands[2], r2)) {
+                                continue;
+                            }
+                            if (++compared > MAX_TIES) {
+                                return false;
+                            }
+                            for (int p = 0; p < 3; p++) {
+                                tryRows[p] = bands[0] * 3 + PERM3[r0][p];
+                                tryRows[p + 3] = bands[1] * 3 + PERM3[r1][p];
+                                tryRows[p + 6] = bands[2] * 3 + PERM3[r2][p];
+                            }
+                            if (tryDigits(t, !found)) {
+                                found = true;
+                                transposed = t == 1;
+                                System.arraycopy(tryRows, 0, rowPerm, 0, 9);
+                                System.arraycopy(tryCols, 0, colPerm, 0, 9);
+                                System.arraycopy(tryLabel, 0, label, 0, 10);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Digits absent from the puzzle take the remaining labels in increasing order
+        int next = 1;
+        for (int d = 1; d <= 9; d++) {
+            next = Math.max(next, label[d] + 1);
+        }
+        for (int d = 1; d <= 9; d++) {
+            if (label[d] == 0) {
+                label[d] = next++;
+            }
+            digit[label[d]] = d;
+        }
+        return true;
+    }
+
+    // Finds the column arrangements (transposition, stack order, column order within each stack) whose smallest
+    // pattern of givens is the smallest overall, and stores all of them in ties
+    // The arrangements are searched stack by stack. Until a stack's column order is chosen, its columns count as
+    // sorted blanks first (order SORTED), which gives every row its smallest possible value; the pattern built from
+    // those values is a lower bound for every arrangement below, so a branch whose bound exceeds the best pattern
+    // found so far is skipped.
+    private void findSmallestPatterns() {
+        for (int t = 0; t < 2; t++) {
+            int[] cellsOf = source[t];
+            for (int s = 0; s < 3; s++) {
+                for (int r = 0; r < 9; r++) {
+                    int base = r * 9 + s * 3;
+                    for (int k = 0; k < 6; k++) {
+                        int[] order = PERM3[k];
+                        triple[t][s][k][r] = (cellsOf[base + order[0]] != 0 ? 4 : 0)
+                                | (cellsOf[base + order[1]] != 0 ? 2 : 0)
+                                | (cellsOf[base + order[2]] != 0 ? 1 : 0);
+                    }
+                    // Blanks first: 0, 1, 3 or 7 depending on the number of givens
+                    triple[t][s][SORTED][r] = (1 << Integer.bitCount(triple[t][s][0][r])) - 1;
+                }
+            }
+        }
+
+        bestHigh = Long.MAX_VALUE;
+        bestLow = Integer.MAX_VALUE;
+        tieCount = 0;
+        for (int t = 0; t < 2; t++) {
+            for (int sp = 0; sp < 6; sp++) {
+                if (comparePattern(t | sp << 1 | SORTED << 4 | SORTED << 7 | SORTED << 10) > 0) {
+                    continue;
+                }
+                for (int k0 = 0; k0 < 6; k0++) {
+                    if (comparePattern(t | sp << 1 | k0 << 4 | SORTED << 7 | SORTED << 10) > 0) {
+                        continue;
+                    }
+                    for (int k1 = 0; k1 < 6; k1++) {
+                        if (comparePattern(t | sp << 1 | k0 << 4 | k1 << 7 | SORTED << 10) > 0) {
+                            continue;
+                        }
+                        for (int k2 = 0; k2 < 6; k2++) {
+                            int tie = t | sp << 1 | k0 << 4 | k1 << 7 | k2 << 10;
+                            int cmp = comparePattern(tie);
+                            if (cmp < 0) {
+                                bestHigh = high;
+                                bestLow = low;
+                                tieCount = 0;
+                            }
+                            if (cmp <= 0) {
+                                ties[tieCount++] = tie;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Computes the smallest pattern of a column arrangement into high/low and compares it with the best one
+    // @param tie Packed arrangement; column orders may be SORTED for a lower bound
+    // @return Negative, zero or positive as the pattern is smaller than, equal to or larger than the best
+    private int comparePattern(int tie) {
+        rowValues(tie & 1, tie);
+        // Sort each band's rows, then the bands: the pattern is the three 27-bit band keys in order
+        int b0 = bandKey(0);
+        int b1 = bandKey(1);
+        int b2 = bandKey(2);
+        int lo = Math.min(b0, Math.min(b1, b2));
+        int hi = Math.max(b0, Math.max(b1, b2));
+        high = (long) lo << 27 | (b0 + b1 + b2 - lo - hi);
+        low = hi;
+        if (high != bestHigh) {
+            return high < bestHigh ? -1 : 1;
+        }
+        return Integer.compare(low, bestLow);
+    }
+
+    // Fills values with the 9-bit pattern of every source row under a column arrangement
+    private void rowValues(int t, int tie) {
+        int[] stacks = PERM3[(tie >> 1) & 7];
+        int[] a = triple[t][stacks[0]][(tie >> 4) & 7];
+        int[] b = triple[t][stacks[1]][(tie >> 7) & 7];
+        int[] c = triple[t][stacks[2]][(tie >> 10) & 7];
+        for (int r = 0; r < 9; r++) {
+            values[r] = a[r] << 6 | b[r] << 3 | c[r];
+        }
+    }
+
+    // 27-bit key of a band with its rows sorted
+    private int bandKey(int band) {
+        int x = values[3 * band];
+        int y = values[3 * band + 1];
+        int z = values[3 * band + 2];
+        int lo = Math.min(x, Math.min(y, z));
+        int hi = Math.max(x, Math.max(y, z));
+        return lo << 18 | (x + y + z - lo - hi) << 9 | hi;
+    }
+
+    // Whether a row order keeps a band's row patterns in increasing order
+    private boolean sortedRows(int band, int order) {
+        int[] rows = PERM3[order];
+        return values[3 * band + rows[0]] <= values[3 * band + rows[1]]
+                && values[3 * band + rows[1]] <= values[3 * band + rows[2]];
+    }
+
+    // Relabels the digits of the arrangement in tryRows/tryCols and compares the result with cells
+    // @param first true if there is no best arrangement yet, so the result is taken as is
+    // @return true if the arrangement is smaller than the current best; cells and tryLabel then hold it
+    private boolean tryDigits(int t, boolean first) {
+        int[] cellsOf = source[t];
+        Arrays.fill(tryLabel, 0);
+        int next = 1;
+        boolean smaller = first;
+        for (int p = 0; p < 9; p++) {
+            int rowBase = tryRows[p] * 9;
+            for (int q = 0; q < 9; q++) {
+                int d = cellsOf[rowBase + tryCols[q]];
+                if (d == 0) {
+                    continue;
+                }
+                if (tryLabel[d] == 0) {
+                    tryLabel[d] = next++;
+                }
+                int at = p * 9 + q;
+                if (!smaller) {
+                    if (tryLabel[d] > cells[at]) {
+                        return false;
+                    }
+                    smaller = tryLabel[d] < cells[at];
+                }
+                if (smaller) {
+                    cells[at] = (byte) tryLabel[d];
+                }
+            }
+        }
+        if (first) {
+            // Blanks of the first arrangement; later ones share the same pattern
+            for (int p = 0; p < 9; p++) {
+                for (int q = 0; q < 9; q++) {
+                    if (cellsOf[tryRows[p] * 9 + tryCols[q]] == 0) {
+                        cells[p * 9 + q] = 0;
+                    }
+                }
+            }
+        }
+        return smaller;
+    }
+
+    // The canonical puzzle as a string of 81 characters, usable as a map key
+    public String key() {
+        return new String(cells, StandardCharsets.ISO_8859_1);
+    }
+
+    // Maps a solution of the original puzzle to the canonical puzzle's solution
+    // @param grid Solved 9x9 grid of the original puzzle
+    // @param out Receives 81 cells in canonical row-major order and labels
+    public void toCanonical(int[][] grid, byte[] out) {
+        for (int p = 0; p < 9; p++) {
+            for (int q = 0; q < 9; q++) {
+                int i = rowPerm[p];
+                int j = colPerm[q];
+                out[p * 9 + q] = (byte) label[transposed ? grid[j][i] : grid[i][j]];
+            }
+        }
+    }
+
+    // Maps a solution of the canonical puzzle back to the original puzzle
+    // @param canonical 81 cells in canonical row-major order and labels
+    // @param grid Receives the solved 9x9 grid of the original puzzle
+    public void fromCanonical(byte[] canonical, int[][] grid) {
+        for (int p = 0; p < 9; p++) {
+            for (int q = 0; q < 9; q++) {
+                int i = rowPerm[p];
+                int j = colPerm[q];
+                int d = digit[canonical[p * 9 + q]];
+                if (transposed) {
+                    grid[j][i] = d;
+                } else {
+                    grid[i][j] = d;
+                }
+            }
+        }
+    }
+}
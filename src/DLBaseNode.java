@@ -0,0 +1,10 @@
+// Base node class for Dancing Links structure
+abstract class DLBaseNode {
+    DLBaseNode up, down, left, right;
+    // Id of the node in the DLXMatrix numbering (0 = master node, then the column headers, then the 1s)
+    int id;
+
+    DLBaseNode() {
+        up = down = left = right = this;
+    }
+}
@@ -0,0 +1,13 @@
+// Column header node for Dancing Links matrix
+class DLHeaderNode extends DLBaseNode {
+    // Number of 1s in the column, with this we can figure out which column has fewest 1s to choose this for efficient (heuristic to minimize branching)
+    int size;
+    // Neighbours in the circular list of uncovered columns of the same size (see DancingLinks.sizeBuckets)
+    DLHeaderNode prevBySize, nextBySize;
+
+    DLHeaderNode() {
+        super();
+        size = 0;
+        prevBySize = nextBySize = this;
+    }
+}
@@ -0,0 +1,70 @@
+// Common operations of a Dancing Links exact-cover matrix, used by DLXSearch, Presolver and ExactCoverSolver
+// Every node is addressed by an int id: id 0 is the root (master node), ids 1..numCols are the column headers
+// and the remaining ids are the 1s of the matrix. A column is identified by the id of its header node.
+// Only primary columns are linked into the header list from ROOT; secondary (optional) columns may be covered at
+// most once but never have to be, so the search never picks them.
+interface DLXMatrix {
+    // Id of the root node; the matrix is fully covered when right(ROOT) == ROOT
+    int ROOT = 0;
+
+    // Neighbours of a node in the circular doubly-linked lists
+    int left(int node);
+
+    int right(int node);
+
+    int up(int node);
+
+    int down(int node);
+
+    // Returns the column header id of a node
+    int column(int node);
+
+    // Returns the matrix row (0-based; 0 to 728 for 9x9 Sudoku) a node belongs to, or -1 for header nodes
+    int rowNumber(int node);
+
+    // Returns the number of 1s currently left in a column
+    int size(int column);
+
+    // Covers a column by removing it and its associated rows from the matrix
+    void coverColumn(int column);
+
+    // Uncovers a previously covered column, restoring it and its associated rows
+    void uncoverColumn(int column);
+
+    // Removes a row from every column it appears in, for rows that can be ruled out before the search
+    // There is no undo: the row comes back only with reset(). Must not be called while columns covered
+    // after the removal are still to be uncovered.
+    // @param node Any node of the row
+    void removeRow(int node);
+
+    // Finds the column with the smallest number of 1s (fewest remaining rows)
+    // @return The column, or ROOT if every column is covered
+    int getSmallestColumn();
+
+    // Walks the columns tied with getSmallestColumn(): the next uncovered column with the same size as a column
+    // @param column A column returned by getSmallestColumn() or by this method
+    // @return The next column of that size, or ROOT after the last one
+    int nextOfSameSize(int column);
+
+    // Restores the matrix to its initial state: every row present, every column uncovered
+    void reset();
+
+    // Covers every column of a row, committing to it before the search (a Sudoku given, a fixed placement)
+    // @param rowNumber The matrix row
+    // @return false if the row was already removed or conflicts with an earlier selection; nothing is covered then
+    boolean selectRow(int rowNumber);
+
+    // Undoes selectRow: uncovers the row's columns in the reverse order they were covered
+    // The row must be the most recent selection not yet undone, as for coverColumn/uncoverColumn
+    // @param rowNumber The matrix row
+    void unselectRow(int rowNumber);
+
+    // Removes a row from the matrix for good, like removeRow(node), addressed by row number
+    // @param rowNumber The matrix row
+    // @return false if the row was already removed or conflicts with an earlier selection
+    boolean excludeRow(int rowNumber);
+
+    // Sets where coverColumn/uncoverColumn count their calls and link updates when SearchStats.ENABLED
+    // @param stats Counters to update, or null to count nothing
+    void setStats(SearchStats stats);
+}
@@ -0,0 +1,249 @@
+import java.util.SplittableRandom;
+
+// Algorithm X over a DLXMatrix, written as a loop over an explicit stack instead of recursion
+// Level k of the stack holds the column covered at depth k and the row node currently tried in it. Because the
+// whole search state lives in these arrays, run() can return in the middle of the search (deadline, cancellation,
+// pause) and a later run() continues exactly where it stopped.
+// By default the search is deterministic: ties between smallest columns go to the first one and the rows of a
+// column are tried top to bottom. setRandomOrder() breaks ties at random, starts each column at a random row (the
+// rest follow in circular order) and optionally restarts from the root on a RestartSchedule until the first
+// solution, which cuts the heavy tail of backtracking times.
+class DLXSearch {
+    // Deadline value meaning the search may run for as long as it takes
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+    // The deadline, token and pause flag are checked once every CHECK_INTERVAL search steps
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final DLXMatrix matrix;
+    // Column covered at each depth
+    private final int[] columns;
+    // Row node selected at each depth
+    private final int[] nodes;
+    // Row node tried first at each depth; the column is done when its rows wrap around to it
+    private final int[] firstNodes;
+    // Number of rows currently selected
+    private int depth;
+    // True when the next step goes one level deeper, false when it moves on to the next row of the current level
+    private boolean descending;
+    // False until the first run() after construction or reset()
+    private boolean started;
+    // Steps left until the next deadline/token/pause check
+    private int stepsToCheck;
+    // Set by pause() from any thread, cleared when run() returns PAUSED
+    private volatile boolean pauseRequested;
+    // Counters updated when SearchStats.ENABLED, null for none
+    private SearchStats stats;
+    // Source of the random choices, null for the deterministic order
+    private SplittableRandom random;
+    // Budgets between restarts, null to never restart
+    private RestartSchedule restarts;
+    // Restarts of the current puzzle, and backtracks left before the next one
+    private int restartCount;
+    private long backtracksLeft;
+    // Set once run() has returned a solution; from then on the search never restarts, so that continuing it
+    // enumerates every remaining solution exactly once
+    private boolean solvedOnce;
+
+    // Constructor: Creates a search over a matrix
+    // @param matrix The matrix to search; its current state (givens covered) is the root of the search
+    // @param maxDepth Upper bound on the number of rows in a solution (81 for 9x9 Sudoku)
+    DLXSearch(DLXMatrix matrix, int maxDepth) {
+        this.matrix = matrix;
+        this.columns = new int[maxDepth + 1];
+        this.nodes = new int[maxDepth + 1];
+        this.firstNodes = new int[maxDepth + 1];
+    }
+
+    // Switches between the deterministic order and randomized choices; applies from the next reset()
+    // @param random Source of the tie-breaks and starting rows, or null for the deterministic order
+    // @param restarts Budgets between restarts, or null to never restart; ignored without a random source
+    public void setRandomOrder(SplittableRandom random, RestartSchedule restarts) {
+        this.random = random;
+        this.restarts = random != null ? restarts : null;
+    }
+
+    // Forgets the current search so that the next run() starts from the matrix's current state
+    // Does not touch the matrix; callers reset the matrix itself or call unwind() first
+    public void reset() {
+        depth = 0;
+        started = false;
+        pauseRequested = false;
+        solvedOnce = false;
+        restartCount = 0;
+    }
+
+    // Uncovers everything the search has covered, restoring the matrix to its state before the first run()
+    // Every level below depth has its column covered and its row selected whenever run() has returned
+    public void unwind() {
+        uncoverLevels();
+        reset();
+    }
+
+    // Undoes every level of the stack, leaving the matrix as it was at the root
+    private void uncoverLevels() {
+        while (depth > 0) {
+            depth--;
+            int r = nodes[depth];
+            for (int j = matrix.left(r); j != r; j = matrix.left(j)) {
+                matrix.uncoverColumn(matrix.column(j));
+            }
+            matrix.uncoverColumn(columns[depth]);
+        }
+    }
+
+    // Sets where the search counts nodes, backtracks, depth and branching when SearchStats.ENABLED
+    // Only the search's own counters; the matrix counts cover/uncover work through DLXMatrix.setStats
+    // @param stats Counters to update, or null to count nothing
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    // Asks a running (or the next) run() call to return PAUSED at its next check; safe to call from any thread
+    public void pause() {
+        pauseRequested = true;
+    }
+
+    // Runs the search until it finds a solution, runs out of rows, or has to stop
+    // After SOLVED the selected rows are available through getDepth()/getRowNumber() and the next run() looks
+    // for the next solution. After TIMED_OUT, CANCELLED or PAUSED the next run() continues the same search.
+    // @param deadlineNanos System.nanoTime() value after which the search stops, or NO_DEADLINE
+    // @param token Cancellation token polled by the search, or null
+    // @return SOLVED, UNSOLVABLE (no further solution), TIMED_OUT, CANCELLED or PAUSED
+    public SolveStatus run(long deadlineNanos, CancellationToken token) {
+        if (!started) {
+            started = true;
+            descending = true;
+            depth = 0;
+            backtracksLeft = restarts != null ? restarts.budget(0) : Long.MAX_VALUE;
+        }
+        stepsToCheck = CHECK_INTERVAL;
+
+        while (true) {
+            if (--stepsToCheck == 0) {
+                stepsToCheck = CHECK_INTERVAL;
+                if (pauseRequested) {
+                    pauseRequested = false;
+                    return SolveStatus.PAUSED;
+                }
+                if (token != null && token.isCancelled()) {
+                    return SolveStatus.CANCELLED;
+                }
+                if (deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0) {
+                    return SolveStatus.TIMED_OUT;
+                }
+            }
+
+            if (descending) {
+                // All columns covered: the selected rows form a solution
+                if (matrix.right(DLXMatrix.ROOT) == DLXMatrix.ROOT) {
+                    descending = false;
+                    solvedOnce = true;
+                    return SolveStatus.SOLVED;
+                }
+                // Select the column with the fewest 1s and try its first row
+                int c = random != null ? pickSmallestColumn() : matrix.getSmallestColumn();
+                if (SearchStats.ENABLED && stats != null) {
+                    stats.recordChoice(matrix.size(c));
+                }
+                matrix.coverColumn(c);
+                columns[depth] = c;
+                int r = matrix.down(c);
+                if (r == c) {
+                    // Empty column: dead end, go back up
+                    matrix.uncoverColumn(c);
+                    descending = false;
+                } else {
+                    if (random != null) {
+                        for (int skip = random.nextInt(matrix.size(c)); skip > 0; skip--) {
+                            r = matrix.down(r);
+                        }
+                    }
+                    firstNodes[depth] = r;
+                    selectRow(r);
+                }
+            } else {
+                // The subtree below the row at depth - 1 is done: undo it and try the next row of that column
+                if (depth == 0) {
+                    return SolveStatus.UNSOLVABLE;
+                }
+                if (--backtracksLeft < 0 && !solvedOnce) {
+                    // Out of budget before the first solution: start over with new random choices
+                    uncoverLevels();
+                    restartCount++;
+                    backtracksLeft = restarts.budget(restartCount);
+                    descending = true;
+                    if (SearchStats.ENABLED && stats != null) {
+                        stats.restarts++;
+                    }
+                    continue;
+                }
+                depth--;
+                if (SearchStats.ENABLED && stats != null) {
+                    stats.backtracks++;
+                }
+                int r = nodes[depth];
+                for (int j = matrix.left(r); j != r; j = matrix.left(j)) {
+                    matrix.uncoverColumn(matrix.column(j));
+                }
+                // Next row in circular order, skipping the header; back at the first row the column is done
+                int c = columns[depth];
+                r = matrix.down(r);
+                if (r == c) {
+                    r = matrix.down(c);
+                }
+                if (r == firstNodes[depth]) {
+                    matrix.uncoverColumn(c);
+                } else {
+                    selectRow(r);
+                    descending = true;
+                }
+            }
+        }
+    }
+
+    // Picks one of the columns tied for the fewest 1s uniformly at random (reservoir sampling over the tie)
+    // Columns with 0 or 1 rows are taken as they come: a dead end or a forced row leaves nothing to choose
+    private int pickSmallestColumn() {
+        int c = matrix.getSmallestColumn();
+        if (c == DLXMatrix.ROOT || matrix.size(c) <= 1) {
+            return c;
+        }
+        int ties = 1;
+        for (int d = matrix.nextOfSameSize(c); d != DLXMatrix.ROOT; d = matrix.nextOfSameSize(d)) {
+            if (random.nextInt(++ties) == 0) {
+                c = d;
+            }
+        }
+        return c;
+    }
+
+    // Number of restarts of the current puzzle so far
+    public int getRestartCount() {
+        return restartCount;
+    }
+
+    // Covers the other columns of a row in the column at the current depth and goes one level deeper
+    private void selectRow(int r) {
+        nodes[depth++] = r;
+        if (SearchStats.ENABLED && stats != null) {
+            stats.nodes++;
+            if (depth > stats.maxDepth) {
+                stats.maxDepth = depth;
+            }
+        }
+        for (int j = matrix.right(r); j != r; j = matrix.right(j)) {
+            matrix.coverColumn(matrix.column(j));
+        }
+    }
+
+    // Number of rows selected; after SOLVED this is the number of rows in the solution
+    public int getDepth() {
+        return depth;
+    }
+
+    // Matrix row selected at a depth
+    // @param level Depth, 0 to getDepth() - 1
+    public int getRowNumber(int level) {
+        return matrix.rowNumber(nodes[level]);
+    }
+}
@@ -1,25 +1,68 @@
 // Manages the Dancing Links matrix construction and operations for solving Sudoku using the Exact Cover problem
-class DancingLinks {
-    // Constants defining the matrix dimensions
-    // 9 rows * 9 cols * 9 numbers = 729 rows, representing every possible move (each cell can have values 1-9)
-    private static final int NUM_ROWS = 729;
-    // 81 cells + 81 row-number constraints + 81 column-number constraints + 81 box-number constraints = 324 columns
+class DancingLinks implements DLXMatrix {
+    // Matrix dimensions for an N x N board with boxSize x boxSize boxes (N = 9, boxSize = 3 for classic Sudoku)
+    private int boxSize;
+    private int n;
+    // N rows * N cols * N numbers (729 for 9x9), representing every possible move (each cell can have values 1-N)
+    private int numRows;
+    // N^2 cells + N^2 row-number + N^2 column-number + N^2 box-number constraints (324 columns for 9x9)
     // Each column represents a constraint that must be satisfied in the Sudoku grid
-    private static final int NUM_COLS = 324;
+    private int numCols;
 
     // The root node of the doubly-linked matrix, serving as the entry point to the column headers
     private DLHeaderNode masterNode;
-    // Array of column header nodes, one for each of the 324 constraints
+    // Array of column header nodes, one for each constraint (324 for 9x9)
     private DLHeaderNode[] topColumnNodeList;
-    // Array of the first node in each row, used to track the 729 rows
+    // Array of the first node in each row, used to track the rows (729 for 9x9)
     private DLNode[] topRowNodeList;
+    // Every node of the matrix indexed by its id, so the search can address nodes as ints
+    private DLBaseNode[] nodesById;
+    // Heads of the circular lists of uncovered columns by size (index = size), kept up to date by cover/uncover
+    // so that getSmallestColumn reads the first non-empty list instead of walking every column header
+    private DLHeaderNode[] sizeBuckets;
+    // Counters updated by cover/uncover when SearchStats.ENABLED, null for none
+    private SearchStats stats;
 
-    // Constructor: Initializes the Dancing Links matrix based on a given 9x9 Sudoku grid
-    // @param matrix The initial Sudoku grid, where 0 represents empty cells
+    // Constructor: Initializes the Dancing Links matrix based on a given N x N Sudoku grid
+    // @param matrix The initial Sudoku grid (9x9, 16x16, ...), where 0 represents empty cells
     public DancingLinks(int[][] matrix) {
+        setDimensions(matrix.length);
         initializeMatrix();           // Set up the column headers
         setupRows();                 // Create the rows for all possible moves
-        handlePreFilledEntries(matrix); // Process pre-filled cells in the Sudoku grid
+        initializeBuckets();         // Group the columns by size
+        handlePreFilledEntries(matrix); // Process pre-filled cells in the Sudoku grid (conflicting ones are skipped)
+    }
+
+    // Restores the empty board, relinking the existing nodes; the graph is only built again if the board size
+    // changed, so a reused matrix allocates nothing
+    @Override
+    public void reset() {
+        if (topColumnNodeList.length != numCols) {
+            initializeMatrix();
+            setupRows();
+            initializeBuckets();
+            return;
+        }
+        relinkMatrix();
+        linkBuckets();
+    }
+
+    // Restores the node graph for another puzzle
+    // @param matrix The initial Sudoku grid, where 0 represents empty cells
+    // @return false if a given conflicts with an earlier one (it is then skipped), true otherwise
+    public boolean reset(int[][] matrix) {
+        setDimensions(matrix.length);
+        reset();
+        return handlePreFilledEntries(matrix);
+    }
+
+    // Derives the matrix dimensions from the board size
+    // @param size Board size N, which must be the square of the box size
+    private void setDimensions(int size) {
+        boxSize = ArrayDancingLinks.boxSizeOf(size);
+        n = size;
+        numRows = n * n * n;
+        numCols = 4 * n * n;
     }
 
     // Initializes the circular doubly-linked list of column headers
@@ -27,16 +70,21 @@ class DancingLinks {
         // Create the master node (root of the matrix)
         masterNode = new DLHeaderNode();
         // Initialize the array to store column headers
-        topColumnNodeList = new DLHeaderNode[NUM_COLS];
+        topColumnNodeList = new DLHeaderNode[numCols];
         // Initialize the array to store the first node of each row
-        topRowNodeList = new DLNode[NUM_ROWS];
+        topRowNodeList = new DLNode[numRows];
+        // Master node + column headers + 4 nodes per row
+        nodesById = new DLBaseNode[1 + numCols + numRows * 4];
+        nodesById[ROOT] = masterNode;
 
         // Set up column headers in a circular doubly-linked list
         DLHeaderNode prevCol = masterNode;
-        for (int c = 0; c < NUM_COLS; c++) {
+        for (int c = 0; c < numCols; c++) {
             // Create a new column header node
             DLHeaderNode currentCol = new DLHeaderNode();
             topColumnNodeList[c] = currentCol;
+            currentCol.id = c + 1;
+            nodesById[currentCol.id] = currentCol;
             // Link the current column header to the previous one (left)
             currentCol.left = prevCol;
             // Link the previous column header to the current one (right)
@@ -44,25 +92,26 @@ class DancingLinks {
             prevCol = currentCol;
         }
         // Complete the circular list by linking the last column to the master node
-        topColumnNodeList[NUM_COLS - 1].right = masterNode;
-        masterNode.left = topColumnNodeList[NUM_COLS - 1];
+        topColumnNodeList[numCols - 1].right = masterNode;
+        masterNode.left = topColumnNodeList[numCols - 1];
     }
 
-    // Sets up the rows of the matrix, representing all possible moves (729 rows)
-    // Each row corresponds to placing a number (1-9) in a specific cell (row, col)
+    // Sets up the rows of the matrix, representing all possible moves (729 rows for 9x9)
+    // Each row corresponds to placing a number (1-N) in a specific cell (row, col)
     private void setupRows() {
-        for (int i = 0; i < NUM_ROWS; i++) {
+        for (int i = 0; i < numRows; i++) {
             // Decode the row index into Sudoku grid coordinates and number
-            int r = i / 81;           // Row of the Sudoku grid (0-8)
-            int c = (i % 81) / 9;     // Column of the Sudoku grid (0-8)
-            int num = (i % 9) + 1;    // Number to place (1-9)
+            int cells = n * n;
+            int r = i / cells;        // Row of the Sudoku grid (0-8 for 9x9)
+            int c = (i % cells) / n;  // Column of the Sudoku grid (0-8 for 9x9)
+            int num = (i % n) + 1;    // Number to place (1-9 for 9x9)
 
             // Calculate column indices for the four constraints for this move
-            int node1Index = r * 9 + c;                // Cell constraint: Each cell has exactly one number
-            int node2Index = 81 + r * 9 + (num - 1);   // Row-number constraint: Each row has each number once
-            int node3Index = 162 + c * 9 + (num - 1);  // Column-number constraint: Each column has each number once
-            int b = (r / 3) * 3 + (c / 3);            // Box index (0-8 for 3x3 subgrids)
-            int node4Index = 243 + b * 9 + (num - 1);  // Box-number constraint: Each box has each number once
+            int node1Index = r * n + c;                      // Cell constraint: Each cell has exactly one number
+            int node2Index = cells + r * n + (num - 1);      // Row-number constraint: Each row has each number once
+            int node3Index = 2 * cells + c * n + (num - 1);  // Column-number constraint: Each column has each number once
+            int b = (r / boxSize) * boxSize + (c / boxSize); // Box index (0-8 for 3x3 subgrids)
+            int node4Index = 3 * cells + b * n + (num - 1);  // Box-number constraint: Each box has each number once
 
             // Create four nodes for this row, one for each constraint
             DLNode node1 = new DLNode(topColumnNodeList[node1Index], i);
@@ -83,6 +132,17 @@ class DancingLinks {
             // Store the first node of the row for easy access
             topRowNodeList[i] = node1;
 
+            // Number the nodes after the column headers, 4 per row
+            int firstId = 1 + numCols + i * 4;
+            node1.id = firstId;
+            node2.id = firstId + 1;
+            node3.id = firstId + 2;
+            node4.id = firstId + 3;
+            nodesById[node1.id] = node1;
+            nodesById[node2.id] = node2;
+            nodesById[node3.id] = node3;
+            nodesById[node4.id] = node4;
+
             // Add each node to its respective column's vertical linked list
             addNodeToColumn(node1, topColumnNodeList[node1Index]);
             addNodeToColumn(node2, topColumnNodeList[node2Index]);
@@ -97,52 +157,159 @@ class DancingLinks {
         }
     }
 
+    // Puts every header back in the root's list and every node back at the bottom of its column, in the order
+    // setupRows added them. Cover, uncover and removeRow only change header and vertical links, so the rows'
+    // horizontal links are still intact.
+    private void relinkMatrix() {
+        DLHeaderNode prevCol = masterNode;
+        for (DLHeaderNode currentCol : topColumnNodeList) {
+            currentCol.left = prevCol;
+            prevCol.right = currentCol;
+            currentCol.up = currentCol;
+            currentCol.down = currentCol;
+            currentCol.size = 0;
+            prevCol = currentCol;
+        }
+        prevCol.right = masterNode;
+        masterNode.left = prevCol;
+        for (DLNode first : topRowNodeList) {
+            DLNode temp = first;
+            do {
+                addNodeToColumn(temp, temp.header);
+                temp.header.size++;
+                temp = (DLNode) temp.right;
+            } while (temp != first);
+        }
+    }
+
+    // Creates one size bucket per possible column size and puts every column in the bucket of its size,
+    // in header order
+    private void initializeBuckets() {
+        int maxSize = 0;
+        for (DLHeaderNode c : topColumnNodeList) {
+            maxSize = Math.max(maxSize, c.size);
+        }
+        sizeBuckets = new DLHeaderNode[maxSize + 1];
+        for (int s = 0; s <= maxSize; s++) {
+            sizeBuckets[s] = new DLHeaderNode();
+        }
+        linkBuckets();
+    }
+
+    // Empties the size buckets and puts every column in the bucket of its size, in header order
+    private void linkBuckets() {
+        for (DLHeaderNode head : sizeBuckets) {
+            head.prevBySize = head;
+            head.nextBySize = head;
+        }
+        for (int c = numCols - 1; c >= 0; c--) {
+            linkBucket(topColumnNodeList[c]);
+        }
+    }
+
+    // Inserts a column at the front of the bucket of its current size
+    private void linkBucket(DLHeaderNode c) {
+        DLHeaderNode head = sizeBuckets[c.size];
+        c.nextBySize = head.nextBySize;
+        c.prevBySize = head;
+        head.nextBySize.prevBySize = c;
+        head.nextBySize = c;
+    }
+
+    // Takes a column out of its size bucket
+    private void unlinkBucket(DLHeaderNode c) {
+        c.prevBySize.nextBySize = c.nextBySize;
+        c.nextBySize.prevBySize = c.prevBySize;
+    }
+
     // Processes pre-filled cells in the Sudoku grid by covering the corresponding columns
-    // This ensures that the constraints for pre-filled cells are satisfied
-    // @param matrix The initial 9x9 Sudoku grid
-    // Processes pre-filled cells in the Sudoku grid by covering the corresponding columns
-// This ensures that the constraints for pre-filled cells are satisfied before the search begins
-// @param matrix The initial 9x9 Sudoku grid, where 0 represents empty cells
-    private void handlePreFilledEntries(int[][] matrix) {
-        // Iterate through each cell in the 9x9 Sudoku grid
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                // Check if the cell is pre-filled (contains a number 1-9, not 0)
-                if (matrix[i][j] != 0) {
+    // This ensures that the constraints for pre-filled cells are satisfied before the search begins
+    // @param matrix The initial N x N Sudoku grid, where 0 represents empty cells
+    // @return false if a given is out of range or its row was already ruled out by an earlier given (it is then
+    //         skipped)
+    private boolean handlePreFilledEntries(int[][] matrix) {
+        boolean consistent = true;
+        // Iterate through each cell in the Sudoku grid
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                // A value outside 0-N has no matrix row; skip it rather than index past the rows
+                if (matrix[i][j] < 0 || matrix[i][j] > n) {
+                    consistent = false;
+                } else if (matrix[i][j] != 0) {
+                    // The cell is pre-filled (contains a number 1-N, not 0)
                     // Get the number in the pre-filled cell
                     int num = matrix[i][j];
                     // Calculate the row index in the DLX matrix for this move
-                    // Formula: rowNumber = (num - 1) + i * 81 + j * 9
-                    // - num - 1: Adjusts number (1-9) to 0-based index (0-8)
-                    // - i * 81: Accounts for the row in the grid (81 possible moves per grid row)
-                    // - j * 9: Accounts for the column in the grid (9 possible numbers per cell)
-                    int rowNumber = (num - 1) + i * 81 + j * 9; // Row index for (i, j, num)
-                    // Get the first node in the corresponding row of the DLX matrix
-                    DLNode headNodeFromARow = topRowNodeList[rowNumber];
-                    // Cover the column for the cell constraint (ensures this cell is filled)
-                    coverColumn(headNodeFromARow.header);
-                    // Cover the columns for the other constraints (row-number, column-number, box-number)
-                    // Iterate through the other nodes in this row (representing the other constraints)
-                    DLNode temp = (DLNode) headNodeFromARow.right;
-                    while (temp != headNodeFromARow) {
-                        coverColumn(temp.header);
-                        temp = (DLNode) temp.right;
-                    }
+                    // Formula: rowNumber = (num - 1) + i * N^2 + j * N  (i * 81 + j * 9 for 9x9)
+                    // - num - 1: Adjusts number (1-N) to 0-based index (0-(N-1))
+                    // - i * N^2: Accounts for the row in the grid (N^2 possible moves per grid row)
+                    // - j * N: Accounts for the column in the grid (N possible numbers per cell)
+                    int rowNumber = (num - 1) + i * n * n + j * n; // Row index for (i, j, num)
+                    // Cover the columns for the cell, row-number, column-number and box-number constraints
+                    consistent &= selectRow(rowNumber);
                 }
             }
         }
+        return consistent;
+    }
+
+    // Whether a row is still in the matrix: every node is linked into its column and every column is uncovered
+    // @param first The first node of the row
+    private static boolean isLive(DLNode first) {
+        DLNode temp = first;
+        do {
+            if (temp.down.up != temp || temp.header.right.left != temp.header) {
+                return false;
+            }
+            temp = (DLNode) temp.right;
+        } while (temp != first);
+        return true;
+    }
+
+    @Override
+    public boolean selectRow(int rowNumber) {
+        // Get the first node in the corresponding row of the DLX matrix
+        DLNode headNodeFromARow = topRowNodeList[rowNumber];
+        if (!isLive(headNodeFromARow)) {
+            return false;
+        }
+        // Cover the column of every node in the row
+        DLNode temp = headNodeFromARow;
+        do {
+            coverColumn(temp.header);
+            temp = (DLNode) temp.right;
+        } while (temp != headNodeFromARow);
+        return true;
+    }
+
+    @Override
+    public void unselectRow(int rowNumber) {
+        DLNode headNodeFromARow = topRowNodeList[rowNumber];
+        // Uncover the columns from the last node of the row back to the first
+        DLNode temp = headNodeFromARow;
+        do {
+            temp = (DLNode) temp.left;
+            uncoverColumn(temp.header);
+        } while (temp != headNodeFromARow);
+    }
+
+    @Override
+    public boolean excludeRow(int rowNumber) {
+        DLNode headNodeFromARow = topRowNodeList[rowNumber];
+        if (!isLive(headNodeFromARow)) {
+            return false;
+        }
+        removeRow(headNodeFromARow.id);
+        return true;
     }
 
     // Adds a node to the vertical linked list of a column
+    // The header's up link always points at the current bottom node, so appending is O(1)
     // @param nodeToAdd The node to add to the column
     // @param columnTop The header node of the column
     private void addNodeToColumn(DLNode nodeToAdd, DLHeaderNode columnTop) {
-        // Start at the column header
-        DLBaseNode temp = columnTop;
-        // Traverse to the last node in the column
-        while (temp.down != columnTop && temp.down != null) {
-            temp = temp.down;
-        }
+        // The last node in the column (the header itself when the column is empty)
+        DLBaseNode temp = columnTop.up;
         // Link the new node vertically
         temp.down = nodeToAdd;
         nodeToAdd.up = temp;
@@ -153,12 +320,14 @@ class DancingLinks {
     // Covers a column by removing it and its associated rows from the matrix
     // This is part of the DLX algorithm to temporarily exclude a column during the search
     // @param topColumnNode The header node of the column to cover
-    public void coverColumn(DLHeaderNode topColumnNode) {
-        // Remove the column from the horizontal linked list
+    private void coverColumn(DLHeaderNode topColumnNode) {
+        // Remove the column from the horizontal linked list and from its size bucket
         topColumnNode.right.left = topColumnNode.left;
         topColumnNode.left.right = topColumnNode.right;
+        unlinkBucket(topColumnNode);
 
         // Traverse each row in the column
+        int removed = 0;
         DLBaseNode i = topColumnNode.down;
         while (i != topColumnNode) {
             // For each node in the row, remove the row from its column
@@ -167,36 +336,126 @@ class DancingLinks {
                 // Unlink the node vertically
                 j.down.up = j.up;
                 j.up.down = j.down;
-                // Decrement the size of the column
-                ((DLNode) j).header.size--;
+                // Decrement the size of the column and move it to the bucket of its new size
+                DLHeaderNode header = ((DLNode) j).header;
+                unlinkBucket(header);
+                header.size--;
+                linkBucket(header);
+                removed++;
                 j = j.right;
             }
             i = i.down;
         }
+        if (SearchStats.ENABLED && stats != null) {
+            stats.coverCalls++;
+            stats.linkUpdates += 2 + 2 * removed;
+        }
     }
 
     // Uncovers a previously covered column, restoring it and its associated rows
     // This reverses the coverColumn operation during backtracking
     // @param topColumnNode The header node of the column to uncover
-    public void uncoverColumn(DLHeaderNode topColumnNode) {
+    private void uncoverColumn(DLHeaderNode topColumnNode) {
         // Traverse the rows in reverse order (bottom to top)
+        int restored = 0;
         DLBaseNode i = topColumnNode.up;
         while (i != topColumnNode) {
             // For each node in the row, restore the row in its column
             DLBaseNode j = i.left;
             while (j != i) {
                 // Restore the vertical links
-                ((DLNode) j).header.size++;
+                DLHeaderNode header = ((DLNode) j).header;
+                unlinkBucket(header);
+                header.size++;
+                linkBucket(header);
                 j.down.up = j;
                 j.up.down = j;
+                restored++;
                 j = j.left;
             }
             i = i.up;
         }
 
-        // Restore the column in the horizontal linked list
+        // Restore the column in the horizontal linked list and in its size bucket (its size did not change)
         topColumnNode.right.left = topColumnNode;
         topColumnNode.left.right = topColumnNode;
+        linkBucket(topColumnNode);
+        if (SearchStats.ENABLED && stats != null) {
+            stats.uncoverCalls++;
+            stats.linkUpdates += 2 + 2 * restored;
+        }
+    }
+
+    @Override
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void coverColumn(int column) {
+        coverColumn((DLHeaderNode) nodesById[column]);
+    }
+
+    @Override
+    public void uncoverColumn(int column) {
+        uncoverColumn((DLHeaderNode) nodesById[column]);
+    }
+
+    @Override
+    public void removeRow(int node) {
+        DLBaseNode j = nodesById[node];
+        int removed = 0;
+        do {
+            // Unlink the node vertically, as coverColumn does for the rows of a covered column
+            j.down.up = j.up;
+            j.up.down = j.down;
+            DLHeaderNode header = ((DLNode) j).header;
+            unlinkBucket(header);
+            header.size--;
+            linkBucket(header);
+            removed++;
+            j = j.right;
+        } while (j != nodesById[node]);
+        if (SearchStats.ENABLED && stats != null) {
+            stats.linkUpdates += 2 * removed;
+        }
+    }
+
+    @Override
+    public int left(int node) {
+        return nodesById[node].left.id;
+    }
+
+    @Override
+    public int right(int node) {
+        return nodesById[node].right.id;
+    }
+
+    @Override
+    public int up(int node) {
+        return nodesById[node].up.id;
+    }
+
+    @Override
+    public int down(int node) {
+        return nodesById[node].down.id;
+    }
+
+    @Override
+    public int column(int node) {
+        DLBaseNode n = nodesById[node];
+        return n instanceof DLNode ? ((DLNode) n).header.id : node;
+    }
+
+    @Override
+    public int rowNumber(int node) {
+        DLBaseNode n = nodesById[node];
+        return n instanceof DLNode ? ((DLNode) n).rowNumber : -1;
+    }
+
+    @Override
+    public int size(int column) {
+        return ((DLHeaderNode) nodesById[column]).size;
     }
 
     // Returns the master node (root) of the matrix
@@ -205,18 +464,22 @@ class DancingLinks {
         return masterNode;
     }
     // Finds the column with the smallest number of 1s (fewest remaining rows)
-    // This heuristic improves the efficiency of the DLX algorithm
-    // @return The column header with the smallest size
-    public DLHeaderNode getSmallestColumn() {
-        DLHeaderNode c = (DLHeaderNode) masterNode.right; // Start with the first column
-        DLHeaderNode tempC = (DLHeaderNode) masterNode.right;
-        // Iterate through all columns to find the one with the smallest size
-        while (tempC != masterNode) {
-            if (tempC.size < c.size) {
-                c = tempC;
+    // This heuristic improves the efficiency of the DLX algorithm. The first non-empty size bucket holds the
+    // answer, so at most N + 1 bucket heads are read, and a column of size 0 (a dead end) is found first.
+    // @return The id of the column header with the smallest size, or ROOT if every column is covered
+    @Override
+    public int getSmallestColumn() {
+        for (DLHeaderNode head : sizeBuckets) {
+            if (head.nextBySize != head) {
+                return head.nextBySize.id;
             }
-            tempC = (DLHeaderNode) tempC.right;
         }
-        return c;
+        return ROOT;
+    }
+
+    // The bucket heads keep the default id 0, so the end of a bucket reads as ROOT
+    @Override
+    public int nextOfSameSize(int column) {
+        return ((DLHeaderNode) nodesById[column]).nextBySize.id;
     }
 }
\ No newline at end of file
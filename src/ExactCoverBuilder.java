@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+// Collects the rows of an arbitrary sparse exact-cover matrix and builds an ArrayDancingLinks from them
+// Columns 0..primaryColumns - 1 are primary (covered exactly once by a solution), the following secondaryColumns
+// are secondary (covered at most once). Rows are numbered 0, 1, ... in the order they are added; those numbers are
+// what DLXMatrix.rowNumber, ExactCoverSolver and ExactCoverCallback report back.
+// The classic Sudoku matrix is built this way by ArrayDancingLinks, and the variants by VariantSudokuSolver.
+class ExactCoverBuilder {
+    private final int primaryColumns;
+    private final int numCols;
+    // Column header ids (1-based) of every row, row after row, columnCount of them
+    private int[] columns = new int[64];
+    private int columnCount;
+    // Start of every row in columns, plus the end of the last one
+    private int[] rowOffsets = new int[17];
+    private int rowCount;
+    // Row in which each column was last used, to reject a column listed twice in one row
+    private final int[] lastRow;
+    // Matrix returned by the last build(), dropped when another row is added
+    private ArrayDancingLinks template;
+
+    // Constructor: Starts an empty matrix
+    // @param primaryColumns Number of columns every solution must cover exactly once
+    // @param secondaryColumns Number of columns every solution may cover at most once
+    public ExactCoverBuilder(int primaryColumns, int secondaryColumns) {
+        if (primaryColumns < 1 || secondaryColumns < 0) {
+            throw new IllegalArgumentException("Invalid column counts: " + primaryColumns + " primary, "
+                    + secondaryColumns + " secondary");
+        }
+        this.primaryColumns = primaryColumns;
+        this.numCols = primaryColumns + secondaryColumns;
+        this.lastRow = new int[numCols];
+        Arrays.fill(lastRow, -1);
+    }
+
+    // Adds a row covering some columns
+    // @param columns 0-based column indices, primary columns first then secondary; at least one, no duplicates
+    // @return The row number
+    // @throws IllegalArgumentException if the row is empty, or a column is out of range or listed twice
+    public int addRow(int... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("Row " + rowCount + " covers no column");
+        }
+        for (int c : columns) {
+            if (c < 0 || c >= numCols) {
+                throw new IllegalArgumentException("Column " + c + " out of range in row " + rowCount);
+            }
+            if (lastRow[c] == rowCount) {
+                throw new IllegalArgumentException("Column " + c + " listed twice in row " + rowCount);
+            }
+            lastRow[c] = rowCount;
+        }
+        if (columnCount + columns.length > this.columns.length) {
+            this.columns = Arrays.copyOf(this.columns, Math.max(2 * this.columns.length,
+                    columnCount + columns.length));
+        }
+        if (rowCount + 2 > rowOffsets.length) {
+            rowOffsets = Arrays.copyOf(rowOffsets, 2 * rowOffsets.length);
+        }
+        // Header ids are 1-based
+        for (int c : columns) {
+            this.columns[columnCount++] = c + 1;
+        }
+        rowOffsets[++rowCount] = columnCount;
+        template = null;
+        return rowCount - 1;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPrimaryColumns() {
+        return primaryColumns;
+    }
+
+    public int getColumnCount() {
+        return numCols;
+    }
+
+    // Builds a matrix of the rows added so far
+    // Each call returns a new matrix; they share the immutable column and row tables, and reset() on any of them
+    // restores the empty state without rebuilding
+    // @return A matrix with every row present and every column uncovered
+    public ArrayDancingLinks build() {
+        return new ArrayDancingLinks(buildTemplate());
+    }
+
+    // Builds (once per set of rows) the pristine matrix that build() copies; it must never be covered
+    ArrayDancingLinks buildTemplate() {
+        if (template == null) {
+            template = new ArrayDancingLinks(primaryColumns, numCols, Arrays.copyOf(rowOffsets, rowCount + 1),
+                    Arrays.copyOf(columns, columnCount));
+        }
+        return template;
+    }
+}
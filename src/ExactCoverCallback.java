@@ -0,0 +1,9 @@
+// Receives each solution found by ExactCoverSolver.forEachSolution
+interface ExactCoverCallback {
+    // Called once per solution with the solver's own row buffer, which is overwritten by the next solution
+    // @param rows Row numbers (as returned by ExactCoverBuilder.addRow) of the solution, in no particular order;
+    //             only the first count entries are meaningful; copy them to keep them
+    // @param count Number of rows in the solution
+    // @return true to keep searching, false to stop
+    boolean onSolution(int[] rows, int count);
+}
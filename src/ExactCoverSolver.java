@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+// Solves an arbitrary exact-cover matrix: presolve, then the iterative Algorithm X of DLXSearch
+// Typical use: build the matrix with ExactCoverBuilder, select() the rows fixed by the instance (givens), then
+// solve(), countSolutions() or forEachSolution(). reset() starts over on the same matrix for the next instance,
+// without rebuilding it. Solutions are reported as the row numbers returned by ExactCoverBuilder.addRow, the
+// selected rows included.
+// An instance belongs to one thread; give each thread its own matrix (ExactCoverBuilder.build()) and solver.
+class ExactCoverSolver {
+    private final DLXMatrix matrix;
+    private final DLXSearch search;
+    private final Presolver presolver;
+    // Rows fixed by select() since the last reset(), selectedCount of them
+    private final int[] selected;
+    private int selectedCount;
+    // Set when a selected row conflicted with an earlier one: the instance has no solution
+    private boolean conflict;
+    // Whether the presolve has run since the last reset(); select()/exclude() are refused after that
+    private boolean presolved;
+    // Result of that presolve and of the selections: false if the instance is known to have no solution
+    private boolean feasible;
+    // Rows of the current solution handed to callbacks
+    private final int[] solution;
+
+    // Constructor: Creates a solver over a matrix
+    // @param matrix The matrix, in its initial state
+    // @param maxRows Upper bound on the number of rows in a solution (81 for 9x9 Sudoku)
+    // @param maxDominatingSize Largest column size the presolve checks for dominated columns, 0 for none
+    public ExactCoverSolver(DLXMatrix matrix, int maxRows, int maxDominatingSize) {
+        this.matrix = matrix;
+        this.search = new DLXSearch(matrix, maxRows);
+        this.presolver = new Presolver(maxRows, maxDominatingSize);
+        this.selected = new int[maxRows];
+        this.solution = new int[maxRows];
+    }
+
+    // Restores the matrix to its initial state and forgets every selection, for the next instance
+    public void reset() {
+        matrix.reset();
+        search.reset();
+        selectedCount = 0;
+        conflict = false;
+        presolved = false;
+    }
+
+    // Fixes a row as part of every solution, covering its columns
+    // @param row Row number
+    // @return false if the row conflicts with an earlier selection or was excluded; the instance then has no
+    //         solution
+    // @throws IllegalStateException if a search has run since the last reset()
+    public boolean select(int row) {
+        checkNotStarted();
+        if (!matrix.selectRow(row)) {
+            conflict = true;
+            return false;
+        }
+        selected[selectedCount++] = row;
+        return true;
+    }
+
+    // Rules a row out of every solution
+    // @param row Row number
+    // @return false if the row was already ruled out (by a selection or an earlier exclusion)
+    // @throws IllegalStateException if a search has run since the last reset()
+    public boolean exclude(int row) {
+        checkNotStarted();
+        return matrix.excludeRow(row);
+    }
+
+    private void checkNotStarted() {
+        if (presolved) {
+            throw new IllegalStateException("Rows can only be selected or excluded before the search; call reset()");
+        }
+    }
+
+    // Runs the presolve on the first search call after a reset
+    private void presolve() {
+        if (!presolved) {
+            presolved = true;
+            feasible = !conflict && presolver.run(matrix);
+        }
+    }
+
+    // Hands every solution to a callback, one at a time, in the solver's own row buffer
+    // @param callback Receives each solution and decides whether to continue
+    // @return The number of solutions passed to the callback
+    public long forEachSolution(ExactCoverCallback callback) {
+        presolve();
+        search.unwind();
+        if (!feasible) {
+            return 0;
+        }
+        // The selected and presolved rows are common to every solution
+        int fixed = selectedCount;
+        System.arraycopy(selected, 0, solution, 0, selectedCount);
+        for (int k = 0; k < presolver.getRowCount(); k++) {
+            solution[fixed++] = presolver.getRowNumber(k);
+        }
+        long count = 0;
+        while (search.run(DLXSearch.NO_DEADLINE, null) == SolveStatus.SOLVED) {
+            count++;
+            int depth = search.getDepth();
+            for (int k = 0; k < depth; k++) {
+                solution[fixed + k] = search.getRowNumber(k);
+            }
+            if (!callback.onSolution(solution, fixed + depth)) {
+                break;
+            }
+        }
+        search.unwind();
+        return count;
+    }
+
+    // Finds one solution
+    // @return The rows of the first solution found, or null if there is none
+    public int[] solve() {
+        int[][] first = new int[1][];
+        forEachSolution((rows, count) -> {
+            first[0] = Arrays.copyOf(rows, count);
+            return false;
+        });
+        return first[0];
+    }
+
+    // Counts the solutions, stopping as soon as limit solutions have been found
+    // @param limit Maximum number of solutions to count (2 is enough to tell unique from ambiguous)
+    // @return The number of solutions, at most limit
+    public long countSolutions(long limit) {
+        presolve();
+        search.unwind();
+        if (!feasible) {
+            return 0;
+        }
+        long count = 0;
+        while (count < limit && search.run(DLXSearch.NO_DEADLINE, null) == SolveStatus.SOLVED) {
+            count++;
+        }
+        search.unwind();
+        return count;
+    }
+
+    // Sets where the presolve, the search and the matrix count their work when SearchStats.ENABLED
+    // @param stats Counters to update, or null to count nothing
+    public void setStats(SearchStats stats) {
+        matrix.setStats(stats);
+        search.setStats(stats);
+        presolver.setStats(stats);
+    }
+}
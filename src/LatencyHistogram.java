@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free histogram of latencies in nanoseconds, for percentiles under concurrent recording
+// Buckets are log-linear: every power of two is split into SUB_BUCKETS equal buckets, so a recorded value is
+// known to within 1 / SUB_BUCKETS (about 6%) at any scale, from nanoseconds to hours, in a fixed ~1000 counters.
+// record() is a couple of atomic adds, cheap enough for every request of a server.
+class LatencyHistogram {
+    // Buckets per power of two (must be a power of two itself)
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values below SUB_BUCKETS get one bucket each, then SUB_BUCKETS per power of two up to 2^63
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // Records one value
+    // @param nanos Latency in nanoseconds; negative values count as 0
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    // Records the same value several times, e.g. once per request of a batch
+    // @param nanos Latency in nanoseconds; negative values count as 0
+    // @param count Number of times to record it
+    public void record(long nanos, long count) {
+        long value = Math.max(nanos, 0);
+        counts.addAndGet(bucketOf(value), count);
+        total.addAndGet(count);
+        sum.addAndGet(value * count);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    // Bucket of a value: the value itself below SUB_BUCKETS, otherwise its power of two and its top SUB_BITS bits
+    // below the leading one
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Middle of the range of values a bucket holds
+    private static long valueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return low + ((1L << shift) >>> 1);
+    }
+
+    // Returns the value below which a fraction of the recorded values fall
+    // @param fraction 0.5 for the median, 0.99 for the 99th percentile...
+    // @return The percentile in nanoseconds (within the bucket precision), 0 if nothing was recorded
+    public long percentile(double fraction) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(valueOf(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // Mean of the recorded values in nanoseconds, 0 if nothing was recorded
+    public double getMean() {
+        long count = total.get();
+        return count == 0 ? 0.0 : (double) sum.get() / count;
+    }
+
+    // Adds the values recorded by another histogram to this one
+    public void add(LatencyHistogram other) {
+        for (int b = 0; b < BUCKETS; b++) {
+            long c = other.counts.get(b);
+            if (c != 0) {
+                counts.addAndGet(b, c);
+            }
+        }
+        total.addAndGet(other.total.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    // Count, mean and the usual percentiles, in microseconds
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                getCount(), getMean() / 1000.0, percentile(0.5) / 1000.0, percentile(0.9) / 1000.0,
+                percentile(0.99) / 1000.0, percentile(0.999) / 1000.0, getMax() / 1000.0);
+    }
+}
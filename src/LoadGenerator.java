@@ -0,0 +1,168 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load-generator client for SolveServer, to measure it on localhost
+// Opens a number of connections, each on its own virtual thread, and keeps a window of pipelined puzzles in flight
+// on every one of them for a fixed time: it sends the window, reads the answers, and sends the next window. The
+// puzzles are taken in turn from a file in the BatchSolver input format. With -server the client first starts a
+// SolveServer in the same JVM on a free port, so a whole run needs no setup.
+// At the end it prints the answers per kind, the throughput and the latency seen by the client, and the server's
+// own STATS line.
+// Usage: java LoadGenerator <puzzles> [port|-server] [connections] [pipeline] [seconds]
+public class LoadGenerator {
+    private final List<String> puzzles;
+    private final int port;
+    private final int pipeline;
+    private final long deadline;
+
+    // Answers by kind, over every connection
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong unsolvable = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    // Time from sending a window to reading each of its answers
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private LoadGenerator(List<String> puzzles, int port, int pipeline, long deadline) {
+        this.puzzles = puzzles;
+        this.port = port;
+        this.pipeline = pipeline;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java LoadGenerator <puzzles> [port|-server] [connections] [pipeline] [seconds]");
+            System.exit(2);
+        }
+        List<String> puzzles = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(args[0]), StandardCharsets.US_ASCII)) {
+            if (!line.isBlank()) {
+                puzzles.add(line.trim());
+            }
+        }
+        boolean embedded = args.length < 2 || args[1].equals("-server");
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int pipeline = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        SolveServer server = null;
+        int port;
+        if (embedded) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            server = new SolveServer(0, cores, cores * 16);
+            server.start();
+            port = server.getPort();
+        } else {
+            port = Integer.parseInt(args[1]);
+        }
+        try {
+            System.out.printf("%d connections x %d pipelined puzzles for %d s against port %d%n", connections,
+                    pipeline, seconds, port);
+            long start = System.nanoTime();
+            LoadGenerator load = new LoadGenerator(puzzles, port, pipeline, start + TimeUnit.SECONDS.toNanos(seconds));
+            load.run(connections);
+            double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.printf("Answers: %d solved, %d unsolvable, %d busy, %d errors%n", load.solved.get(),
+                    load.unsolvable.get(), load.busy.get(), load.errors.get());
+            System.out.printf("Throughput: %.0f puzzles/s%n", (load.solved.get() + load.unsolvable.get()) / elapsed);
+            System.out.println("Client latency: " + load.latency);
+            System.out.println("Server: " + requestStats(port));
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    // Runs every connection on a virtual thread until the deadline
+    private void run(int connections) throws InterruptedException {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                int first = c * pipeline;
+                clients.execute(() -> {
+                    try {
+                        drive(first);
+                    } catch (IOException e) {
+                        System.err.println("Connection failed: " + e.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    // Sends windows of pipelined puzzles on one connection until the deadline
+    // @param first Index of this connection's first puzzle, so connections start at different puzzles
+    private void drive(int first) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            socket.setTcpNoDelay(true);
+            int next = first;
+            while (System.nanoTime() - deadline < 0) {
+                long sent = System.nanoTime();
+                for (int k = 0; k < pipeline; k++) {
+                    out.write(puzzles.get(next++ % puzzles.size()).getBytes(StandardCharsets.US_ASCII));
+                    out.write('\n');
+                }
+                out.flush();
+                boolean shed = false;
+                for (int k = 0; k < pipeline; k++) {
+                    String answer = in.readLine();
+                    if (answer == null) {
+                        throw new IOException("Server closed the connection");
+                    }
+                    if (answer.equals("BUSY")) {
+                        busy.incrementAndGet();
+                        shed = true;
+                        continue;
+                    }
+                    latency.record(System.nanoTime() - sent);
+                    if (answer.startsWith("ERROR")) {
+                        errors.incrementAndGet();
+                    } else if (answer.charAt(0) == '0') {
+                        unsolvable.incrementAndGet();
+                    } else {
+                        solved.incrementAndGet();
+                    }
+                }
+                if (shed) {
+                    // Back off briefly instead of hammering an overloaded server
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Asks the server for its STATS line
+    private static String requestStats(int port) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            out.write("STATS\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return in.readLine();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams grids (puzzles or solutions) into a file in the PackedPuzzles format
+// Records are buffered and written in large chunks; the header's record count is filled in by close(), so the
+// number of grids does not have to be known up front. A file that was not closed, or was closed with abort() after
+// a failure, keeps a count of 0 in its header, so readers see it as empty rather than as a complete file of the
+// records written before the failure.
+class PackedPuzzleWriter implements Closeable {
+    // Records buffered before each write
+    private static final int BUFFER_RECORDS = 4096;
+
+    private final FileChannel out;
+    private final byte[] buffer = new byte[BUFFER_RECORDS * PackedPuzzles.RECORD_BYTES];
+    private int buffered;
+    private long count;
+    // Set by abort(): the file is closed and its header keeps a count of 0
+    private boolean aborted;
+
+    // Constructor: Creates (or overwrites) a packed file and writes a provisional header
+    // @param output File to write
+    public PackedPuzzleWriter(Path output) throws IOException {
+        out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(PackedPuzzles.header(0));
+    }
+
+    // Appends a grid
+    // @param grid 9x9 grid, 0 for empty cells
+    public void write(int[][] grid) throws IOException {
+        PackedPuzzles.encode(grid, buffer, buffered * PackedPuzzles.RECORD_BYTES);
+        added();
+    }
+
+    // Appends a grid stored one cell value (0-9) per byte
+    // @param cells Array holding the 81 cells
+    // @param offset Index of the first cell in the array
+    public void writeCells(byte[] cells, int offset) throws IOException {
+        PackedPuzzles.encodeCells(cells, offset, buffer, buffered * PackedPuzzles.RECORD_BYTES);
+        added();
+    }
+
+    // Appends records that are already encoded
+    // @param records Array holding whole records
+    // @param offset Index of the first record's first byte
+    // @param recordCount Number of records to append
+    public void writeRecords(byte[] records, int offset, int recordCount) throws IOException {
+        flush();
+        writeFully(ByteBuffer.wrap(records, offset, recordCount * PackedPuzzles.RECORD_BYTES));
+        count += recordCount;
+    }
+
+    private void added() throws IOException {
+        count++;
+        if (++buffered == BUFFER_RECORDS) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (buffered > 0) {
+            writeFully(ByteBuffer.wrap(buffer, 0, buffered * PackedPuzzles.RECORD_BYTES));
+            buffered = 0;
+        }
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    // Number of grids written so far
+    public long getCount() {
+        return count;
+    }
+
+    // Closes the file without writing the record count, for a writer whose input failed part way
+    // close() does nothing afterwards, so the writer can still sit in a try-with-resources
+    public void abort() throws IOException {
+        aborted = true;
+        out.close();
+    }
+
+    // Writes the buffered records and the final record count, then closes the file
+    // Only a successful close() stamps the count; it does nothing after abort()
+    @Override
+    public void close() throws IOException {
+        if (aborted) {
+            return;
+        }
+        try {
+            flush();
+            ByteBuffer header = PackedPuzzles.header(count);
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += out.write(header, position);
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
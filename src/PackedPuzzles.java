@@ -0,0 +1,203 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Packed binary format for 9x9 puzzles and solutions: 4 bits per cell, 41 bytes per grid instead of 82 text bytes
+// A file is a HEADER_BYTES header followed by fixed-size records:
+// - header: the magic "SDKP", format version (1), board size (9), 2 reserved bytes, then the record count as a
+//   big-endian long
+// - record: the 81 cells in row order, two per byte with the first cell in the high nibble, 0 for empty; the low
+//   nibble of the last byte is 0
+// Records have a fixed size, so record i starts at HEADER_BYTES + i * RECORD_BYTES and a memory-mapped file can be
+// split between threads without parsing. decode() reads a record with absolute gets, so any number of threads
+// can share one buffer, and RMIT_Sudoku_Solver.reset(ByteBuffer, int) decodes straight into the solver's givens.
+// Usage: java PackedPuzzles pack <input.txt> <output.sdkp>
+//        java PackedPuzzles unpack <input.sdkp> <output.txt>
+public class PackedPuzzles {
+    static final int MAGIC = 0x53444B50; // "SDKP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    // Number of cells per grid
+    static final int CELLS = 81;
+    static final int RECORD_BYTES = (CELLS + 1) / 2;
+    // Bytes per text line: 81 digits + '\n'
+    private static final int LINE_BYTES = CELLS + 1;
+    // Records per memory-mapped window when unpacking
+    private static final int WINDOW_RECORDS = 64 * 1024 * 1024 / RECORD_BYTES;
+    // Records converted per write when unpacking
+    private static final int CHUNK_RECORDS = 4096;
+
+    private PackedPuzzles() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !(args[0].equals("pack") || args[0].equals("unpack"))) {
+            System.err.println("Usage: java PackedPuzzles pack|unpack <input> <output>");
+            System.exit(2);
+        }
+        long count = args[0].equals("pack") ? pack(Path.of(args[1]), Path.of(args[2]))
+                : unpack(Path.of(args[1]), Path.of(args[2]));
+        System.out.println("Converted " + count + " grids");
+    }
+
+    // Header of a file of count records
+    static ByteBuffer header(long count) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put((byte) VERSION).put((byte) 9).putShort((short) 0).putLong(count);
+        header.flip();
+        return header;
+    }
+
+    // Whether a file starts with the packed format's magic
+    static boolean isPacked(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return false;
+        }
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        channel.read(magic, 0);
+        return magic.getInt(0) == MAGIC;
+    }
+
+    // Reads and checks the header of a packed file
+    // @return The number of records
+    // @throws IOException if the header is not a supported one or the file is shorter than the records it declares
+    static long readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.get(4) != VERSION || header.get(5) != 9) {
+            throw new IOException("Not a version " + VERSION + " packed 9x9 puzzle file");
+        }
+        long count = header.getLong(8);
+        if (count < 0 || HEADER_BYTES + count * RECORD_BYTES > channel.size()) {
+            throw new IOException("Truncated packed file: header declares " + count + " records");
+        }
+        return count;
+    }
+
+    // Decodes a record into a grid without moving the buffer's position
+    // @param records Buffer holding the record
+    // @param offset Index of the record's first byte in the buffer
+    // @param grid 9x9 grid to fill, 0 for empty cells
+    static void decode(ByteBuffer records, int offset, int[][] grid) {
+        for (int cell = 0; cell < CELLS; cell += 2) {
+            int b = records.get(offset + (cell >> 1));
+            grid[cell / 9][cell % 9] = (b >> 4) & 0xF;
+            if (cell + 1 < CELLS) {
+                grid[(cell + 1) / 9][(cell + 1) % 9] = b & 0xF;
+            }
+        }
+    }
+
+    // Encodes a grid as a record
+    // @param grid 9x9 grid, 0 for empty cells
+    // @param record Destination array
+    // @param offset Index of the record's first byte in the array
+    static void encode(int[][] grid, byte[] record, int offset) {
+        for (int cell = 0; cell < CELLS; cell += 2) {
+            int high = grid[cell / 9][cell % 9];
+            int low = cell + 1 < CELLS ? grid[(cell + 1) / 9][(cell + 1) % 9] : 0;
+            record[offset + (cell >> 1)] = (byte) (high << 4 | low);
+        }
+    }
+
+    // Encodes cells stored one value (0-9) per byte, as BatchSolver parses them, as a record
+    static void encodeCells(byte[] cells, int cellOffset, byte[] record, int offset) {
+        for (int cell = 0; cell < CELLS; cell += 2) {
+            int high = cells[cellOffset + cell];
+            int low = cell + 1 < CELLS ? cells[cellOffset + cell + 1] : 0;
+            record[offset + (cell >> 1)] = (byte) (high << 4 | low);
+        }
+    }
+
+    // Converts a text file (one 81-character grid per line, '0' or '.' for empty cells) to the packed format
+    // If the input fails part way (an I/O error, a malformed line) the output is aborted and its header keeps a
+    // count of 0, so it is never mistaken for a complete conversion
+    // @return The number of grids converted
+    public static long pack(Path input, Path output) throws IOException {
+        PackedPuzzleWriter writer = new PackedPuzzleWriter(output);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(input), 1 << 16)) {
+            byte[] cells = new byte[CELLS];
+            int count = 0;
+            long lineNumber = 1;
+            int ch;
+            while ((ch = in.read()) != -1) {
+                if (ch == '\n') {
+                    endLine(writer, cells, count, lineNumber++);
+                    count = 0;
+                } else if (ch != '\r') {
+                    if (count == CELLS) {
+                        throw new IllegalArgumentException("Line " + lineNumber + " has more than 81 cells");
+                    }
+                    if (ch >= '1' && ch <= '9') {
+                        cells[count++] = (byte) (ch - '0');
+                    } else if (ch == '0' || ch == '.') {
+                        cells[count++] = 0;
+                    } else {
+                        throw new IllegalArgumentException("Line " + lineNumber + " has invalid character '"
+                                + (char) ch + "'");
+                    }
+                }
+            }
+            // Last line without a trailing newline
+            endLine(writer, cells, count, lineNumber);
+        } catch (Throwable e) {
+            try {
+                writer.abort();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        writer.close();
+        return writer.getCount();
+    }
+
+    // Writes a finished line; blank lines are skipped
+    private static void endLine(PackedPuzzleWriter writer, byte[] cells, int count, long lineNumber)
+            throws IOException {
+        if (count == 0) {
+            return;
+        }
+        if (count != CELLS) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has " + count + " cells, expected 81");
+        }
+        writer.writeCells(cells, 0);
+    }
+
+    // Converts a packed file to text, one 81-digit line per grid ('0' for empty cells)
+    // @return The number of grids converted
+    public static long unpack(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             OutputStream out = Files.newOutputStream(output)) {
+            long count = readHeader(in);
+            byte[] lines = new byte[CHUNK_RECORDS * LINE_BYTES];
+            for (long first = 0; first < count; first += WINDOW_RECORDS) {
+                int records = (int) Math.min(WINDOW_RECORDS, count - first);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * RECORD_BYTES, (long) records * RECORD_BYTES);
+                int at = 0;
+                for (int r = 0; r < records; r++) {
+                    int offset = r * RECORD_BYTES;
+                    for (int cell = 0; cell < CELLS; cell++) {
+                        int b = window.get(offset + (cell >> 1));
+                        lines[at++] = (byte) ('0' + ((cell & 1) == 0 ? (b >> 4) & 0xF : b & 0xF));
+                    }
+                    lines[at++] = '\n';
+                    if (at == lines.length) {
+                        out.write(lines, 0, at);
+                        at = 0;
+                    }
+                }
+                out.write(lines, 0, at);
+            }
+            return count;
+        }
+    }
+}
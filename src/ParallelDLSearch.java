@@ -0,0 +1,115 @@
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Runs the Algorithm X search of one puzzle on a ForkJoinPool
+// The first splitDepth branching levels fork one task per candidate row, each on its own copy of the matrix;
+// below that every task searches its subtree sequentially with DLXSearch. The first task to find a solution
+// publishes it and cancels the shared token, so every other task stops at its next check.
+class ParallelDLSearch extends RecursiveAction {
+    // Tasks are never serialized; the id only keeps the serializable superclass from warning
+    private static final long serialVersionUID = 1L;
+
+    // Matrix owned by this task; never shared with another task
+    private final transient ArrayDancingLinks matrix;
+    // Matrix rows selected on the path to this task, rowCount of them used
+    private final int[] rows;
+    private int rowCount;
+    // Remaining number of levels that may still fork
+    private final int splitDepth;
+    // Rows of the first solution found by any task of this search, null until then
+    private final AtomicReference<int[]> solution;
+    // Cancelled once a solution is published (or by the caller to abandon the search)
+    private final transient CancellationToken token;
+
+    // Constructor: Creates the root task of a search
+    // @param matrix The matrix of the puzzle, givens already covered; the task takes ownership of it
+    // @param maxRows Upper bound on the number of rows in a solution (the number of cells)
+    // @param splitDepth Number of branching levels to spread across the pool
+    // @param solution Receives the rows of the first solution found
+    // @param token Token shared by every task of the search
+    ParallelDLSearch(ArrayDancingLinks matrix, int maxRows, int splitDepth, AtomicReference<int[]> solution,
+                     CancellationToken token) {
+        this(matrix, new int[maxRows], 0, splitDepth, solution, token);
+    }
+
+    private ParallelDLSearch(ArrayDancingLinks matrix, int[] rows, int rowCount, int splitDepth,
+                             AtomicReference<int[]> solution, CancellationToken token) {
+        this.matrix = matrix;
+        this.rows = rows;
+        this.rowCount = rowCount;
+        this.splitDepth = splitDepth;
+        this.solution = solution;
+        this.token = token;
+    }
+
+    @Override
+    protected void compute() {
+        // Forced moves (columns with a single row) never fork, so follow them before deciding to split
+        while (!token.isCancelled() && matrix.right(DLXMatrix.ROOT) != DLXMatrix.ROOT) {
+            int c = matrix.getSmallestColumn();
+            int size = matrix.size(c);
+            if (size == 0) {
+                return;
+            }
+            if (size > 1) {
+                if (splitDepth > 0) {
+                    fork(c);
+                } else {
+                    search();
+                }
+                return;
+            }
+            matrix.coverColumn(c);
+            selectRow(matrix, matrix.down(c));
+        }
+        if (!token.isCancelled()) {
+            publish(rows, rowCount);
+        }
+    }
+
+    // Records a solution unless another task got there first, and stops every other task
+    private void publish(int[] solutionRows, int count) {
+        if (solution.compareAndSet(null, Arrays.copyOf(solutionRows, count))) {
+            token.cancel();
+        }
+    }
+
+    // Creates one child task per row of column c; the last child reuses this task's matrix
+    private void fork(int c) {
+        matrix.coverColumn(c);
+        int n = 0;
+        for (int r = matrix.down(c); r != c; r = matrix.down(r)) {
+            n++;
+        }
+        ParallelDLSearch[] children = new ParallelDLSearch[n];
+        n = 0;
+        for (int r = matrix.down(c); r != c; r = matrix.down(r)) {
+            ArrayDancingLinks copy = matrix.down(r) == c ? matrix : new ArrayDancingLinks(matrix);
+            ParallelDLSearch child =
+                    new ParallelDLSearch(copy, rows.clone(), rowCount, splitDepth - 1, solution, token);
+            child.selectRow(copy, r);
+            children[n++] = child;
+        }
+        invokeAll(children);
+    }
+
+    // Records a row and covers the other columns of that row; its own column must already be covered
+    private void selectRow(ArrayDancingLinks m, int r) {
+        rows[rowCount++] = m.rowNumber(r);
+        for (int j = m.right(r); j != r; j = m.right(j)) {
+            m.coverColumn(m.column(j));
+        }
+    }
+
+    // Searches this task's subtree sequentially until a solution is found or the token is cancelled
+    private void search() {
+        DLXSearch search = new DLXSearch(matrix, rows.length - rowCount);
+        if (search.run(DLXSearch.NO_DEADLINE, token) == SolveStatus.SOLVED) {
+            for (int k = 0; k < search.getDepth(); k++) {
+                rows[rowCount++] = search.getRowNumber(k);
+            }
+            publish(rows, rowCount);
+        }
+    }
+}
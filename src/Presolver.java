@@ -0,0 +1,131 @@
+// Deductions applied directly to a DLXMatrix before the search starts branching
+// Two rules are repeated until neither applies:
+// - Forced rows: a column with a single row left must be satisfied by that row, so the row is selected and its
+//   columns covered. For Sudoku a cell column of size 1 is a naked single, a row/column/box-number column of
+//   size 1 a hidden single.
+// - Dominated columns: if every row left in a small column A also covers column B, one of them will cover B, so
+//   every other row of B is removed. For Sudoku, with A a box-number column and B a row- or column-number column,
+//   this is the pointing rule; with A a row/column-number column and B a box-number column, box-line reduction.
+// A column left with no rows means the puzzle has no solution; the presolve then stops and the search on the
+// remaining matrix fails at once on that column.
+class Presolver {
+    // Rows selected by the forced-row rule, rowCount of them
+    private final int[] rows;
+    private int rowCount;
+    // Largest column checked for domination (the box size for Sudoku: a box meets a line in that many cells)
+    private final int maxDominatingSize;
+    // Counters updated when SearchStats.ENABLED, null for none
+    private SearchStats stats;
+
+    // Constructor: Creates a presolver for matrices of a given size
+    // @param maxRows Upper bound on the number of rows in a solution (81 for 9x9 Sudoku)
+    // @param maxDominatingSize Largest column size the domination rule looks at
+    Presolver(int maxRows, int maxDominatingSize) {
+        this.rows = new int[maxRows];
+        this.maxDominatingSize = maxDominatingSize;
+    }
+
+    // Sets where the presolve counts forced and eliminated rows when SearchStats.ENABLED
+    // @param stats Counters to update, or null to count nothing
+    public void setStats(SearchStats stats) {
+        this.stats = stats;
+    }
+
+    // Applies both rules to a matrix until neither changes it
+    // The selected rows are covered and the eliminated ones removed for good; reset() the matrix to undo
+    // @param matrix The matrix, givens already covered
+    // @return false if a column ran out of rows (no solution), true otherwise
+    public boolean run(DLXMatrix matrix) {
+        rowCount = 0;
+        while (matrix.right(DLXMatrix.ROOT) != DLXMatrix.ROOT) {
+            int c = matrix.getSmallestColumn();
+            int size = matrix.size(c);
+            if (size == 0) {
+                return false;
+            }
+            if (size == 1) {
+                int r = matrix.down(c);
+                rows[rowCount++] = matrix.rowNumber(r);
+                matrix.coverColumn(c);
+                for (int j = matrix.right(r); j != r; j = matrix.right(j)) {
+                    matrix.coverColumn(matrix.column(j));
+                }
+                if (SearchStats.ENABLED && stats != null) {
+                    stats.forced++;
+                }
+            } else if (!eliminateDominated(matrix)) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    // Applies the domination rule to every small column once
+    // @return true if at least one row was removed (or a column was found empty)
+    private boolean eliminateDominated(DLXMatrix matrix) {
+        boolean removed = false;
+        for (int a = matrix.right(DLXMatrix.ROOT); a != DLXMatrix.ROOT; a = matrix.right(a)) {
+            if (matrix.size(a) == 0) {
+                // An earlier removal emptied it: hand the contradiction back to run()
+                return true;
+            }
+            if (matrix.size(a) > maxDominatingSize) {
+                continue;
+            }
+            // Only the columns of A's first row can be covered by every row of A
+            int first = matrix.down(a);
+            for (int j = matrix.right(first); j != first; j = matrix.right(j)) {
+                int b = matrix.column(j);
+                if (matrix.size(b) <= matrix.size(a) || !allRowsCover(matrix, a, b)) {
+                    continue;
+                }
+                // Remove the rows of B that do not go through A; the next one is read before unlinking
+                int next;
+                for (int i = matrix.down(b); i != b; i = next) {
+                    next = matrix.down(i);
+                    if (!rowCovers(matrix, i, a)) {
+                        matrix.removeRow(i);
+                        removed = true;
+                        if (SearchStats.ENABLED && stats != null) {
+                            stats.eliminated++;
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    // Whether every row left in column a has a node in column b
+    private static boolean allRowsCover(DLXMatrix matrix, int a, int b) {
+        for (int i = matrix.down(a); i != a; i = matrix.down(i)) {
+            if (!rowCovers(matrix, i, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether the row of a node has a node in column c
+    private static boolean rowCovers(DLXMatrix matrix, int node, int c) {
+        int j = node;
+        do {
+            if (matrix.column(j) == c) {
+                return true;
+            }
+            j = matrix.right(j);
+        } while (j != node);
+        return false;
+    }
+
+    // Number of rows selected by the last run()
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    // Matrix row selected by the last run()
+    // @param k Index, 0 to getRowCount() - 1
+    public int getRowNumber(int k) {
+        return rows[k];
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Generates random 9x9 puzzles with a unique solution and minimal clues, in the BatchSolver input format
+// Each puzzle starts from a random full grid: the three diagonal boxes (which share no row, column or box) get
+// random permutations of 1-9, the DLX search completes the grid, and random row, column, band and stack swaps
+// and a random transposition shuffle the result further. Clues are then removed in random order, each removal
+// kept only if the puzzle still has a single solution. A clue kept once stays needed after later removals (fewer
+// clues only allow more solutions), so the single pass leaves a minimal puzzle: removing any clue breaks
+// uniqueness.
+// Generation runs across a fixed pool of threads, each with its own generator (solver, grids, random source);
+// the threads share nothing but the queue of finished blocks, which are written in order. The puzzles depend only
+// on the seed, not on the number of threads.
+// Usage: java PuzzleGenerator <output> <count> [threads] [seed]
+public class PuzzleGenerator {
+    // Number of cells (and characters) per puzzle
+    private static final int CELLS = 81;
+    // Bytes per output line: 81 digits + '\n'
+    private static final int LINE_BYTES = CELLS + 1;
+    // Puzzles generated per task; each block gets its own random seed
+    private static final int BLOCK_SIZE = 64;
+    // Minimum time between two progress lines
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+
+    // Each thread keeps one generator, reseeded for every block it generates
+    private static final ThreadLocal<PuzzleGenerator> GENERATOR = ThreadLocal.withInitial(() -> new PuzzleGenerator(0));
+
+    // Reused for the completion of every full grid and for every uniqueness check
+    private final RMIT_Sudoku_Solver solver = new RMIT_Sudoku_Solver(new int[9][9]);
+    // The puzzle being reduced, and the full grid it comes from
+    private final int[][] puzzle = new int[9][9];
+    private final int[][] full = new int[9][9];
+    // Scratch permutations: cell removal order, box filling, row and column order
+    private final int[] order = new int[CELLS];
+    private final int[] perm = new int[9];
+    private final int[] rows = new int[9];
+    private final int[] cols = new int[9];
+    private SplittableRandom random;
+
+    // Constructor: Creates a generator with its own solver
+    // @param seed Seed of the random source; equal seeds give equal puzzles
+    public PuzzleGenerator(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    // Restarts the random source, so that a thread's generator can serve any block
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java PuzzleGenerator <output> <count> [threads] [seed]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        generateFile(Path.of(args[0]), count, threads, seed, System.out);
+    }
+
+    // Generates puzzles into a file, one 81-character line each ('0' for empty cells)
+    // @param output File to create (or overwrite)
+    // @param count Number of puzzles
+    // @param threads Number of worker threads
+    // @param seed Seed of the whole run
+    // @param progress Stream for progress and throughput lines, or null to run silently
+    // @return The total number of clues of the generated puzzles
+    public static long generateFile(Path output, int count, int threads, long seed, PrintStream progress)
+            throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // Blocks submitted but not yet written, oldest first; bounded so memory stays flat on huge runs
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        long start = System.nanoTime();
+        long lastReport = start;
+        long written = 0;
+        long clues = 0;
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            for (int b = 0; b <= blocks; b++) {
+                // Write the oldest block once enough are in flight, and every block at the end
+                while (!pending.isEmpty() && (pending.size() >= threads * 4 || b == blocks)) {
+                    byte[] lines = await(pending.poll());
+                    clues += countClues(lines);
+                    ByteBuffer buffer = ByteBuffer.wrap(lines);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    written += lines.length / LINE_BYTES;
+                    long now = System.nanoTime();
+                    if (progress != null && now - lastReport >= REPORT_INTERVAL_NANOS) {
+                        lastReport = now;
+                        report(progress, written, clues, now - start);
+                    }
+                }
+                if (b < blocks) {
+                    long blockSeed = mix(seed, b);
+                    int size = Math.min(BLOCK_SIZE, count - b * BLOCK_SIZE);
+                    pending.add(workers.submit(() -> generateBlock(blockSeed, size)));
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        if (progress != null) {
+            report(progress, written, clues, System.nanoTime() - start);
+        }
+        return clues;
+    }
+
+    private static byte[] await(Future<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a worker", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Worker failed", e.getCause());
+        }
+    }
+
+    private static void report(PrintStream progress, long written, long clues, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        progress.printf("%d puzzles in %.1f s (%.0f puzzles/s, %.1f clues on average)\n", written, seconds,
+                seconds > 0 ? written / seconds : 0.0, written > 0 ? (double) clues / written : 0.0);
+    }
+
+    // Seed of a block: the run's seed and the block number, scrambled so nearby blocks get unrelated sequences
+    private static long mix(long seed, long block) {
+        long z = seed + (block + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Generates a block of puzzles with the calling thread's generator
+    // @return The puzzle lines of the block, LINE_BYTES per puzzle
+    private static byte[] generateBlock(long seed, int count) {
+        PuzzleGenerator generator = GENERATOR.get();
+        generator.setSeed(seed);
+        byte[] lines = new byte[count * LINE_BYTES];
+        int at = 0;
+        for (int p = 0; p < count; p++) {
+            int[][] grid = generator.next();
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    lines[at++] = (byte) ('0' + grid[i][j]);
+                }
+            }
+            lines[at++] = '\n';
+        }
+        return lines;
+    }
+
+    private static long countClues(byte[] lines) {
+        long clues = 0;
+        for (byte ch : lines) {
+            if (ch > '0' && ch <= '9') {
+                clues++;
+            }
+        }
+        return clues;
+    }
+
+    // Generates one minimal puzzle with a unique solution
+    // @return The puzzle (0 for empty cells); reused by the next call
+    public int[][] next() {
+        int[][] solution = nextFullGrid();
+        for (int i = 0; i < 9; i++) {
+            System.arraycopy(solution[i], 0, puzzle[i], 0, 9);
+        }
+        for (int k = 0; k < CELLS; k++) {
+            order[k] = k;
+        }
+        shuffle(order, CELLS);
+        for (int k = 0; k < CELLS; k++) {
+            int r = order[k] / 9;
+            int c = order[k] % 9;
+            int clue = puzzle[r][c];
+            puzzle[r][c] = 0;
+            solver.reset(puzzle);
+            if (!solver.hasUniqueSolution()) {
+                puzzle[r][c] = clue;
+            }
+        }
+        return puzzle;
+    }
+
+    // Generates a random full grid
+    // @return The grid; reused by the next call
+    public int[][] nextFullGrid() {
+        // The diagonal boxes are independent of each other: any three permutations complete to a valid grid
+        for (int i = 0; i < 9; i++) {
+            Arrays.fill(puzzle[i], 0);
+        }
+        for (int box = 0; box < 9; box += 4) {
+            fillPermutation();
+            for (int k = 0; k < 9; k++) {
+                puzzle[box / 3 * 3 + k / 3][box % 3 * 3 + k % 3] = perm[k] + 1;
+            }
+        }
+        int[][] grid = solver.solve(puzzle);
+
+        // Shuffle the rows within each band, then the bands; the same for columns via the transposition
+        boolean transpose = random.nextBoolean();
+        permuteLines(rows);
+        permuteLines(cols);
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                int value = grid[rows[i]][cols[j]];
+                if (transpose) {
+                    full[j][i] = value;
+                } else {
+                    full[i][j] = value;
+                }
+            }
+        }
+        return full;
+    }
+
+    // Fills lines with a random line order that keeps bands (or stacks) together
+    private void permuteLines(int[] lines) {
+        int[] bands = {0, 1, 2};
+        shuffle(bands, 3);
+        for (int b = 0; b < 3; b++) {
+            int[] within = {0, 1, 2};
+            shuffle(within, 3);
+            for (int k = 0; k < 3; k++) {
+                lines[b * 3 + k] = bands[b] * 3 + within[k];
+            }
+        }
+    }
+
+    // Puts a random permutation of 0-8 in perm
+    private void fillPermutation() {
+        for (int k = 0; k < 9; k++) {
+            perm[k] = k;
+        }
+        shuffle(perm, 9);
+    }
+
+    // Fisher-Yates shuffle of the first length entries of an array
+    private void shuffle(int[] values, int length) {
+        for (int k = length - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            int tmp = values[k];
+            values[k] = values[other];
+            values[other] = tmp;
+        }
+    }
+}
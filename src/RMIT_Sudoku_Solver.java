@@ -1,96 +1,448 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 // Manages the Dancing Links search algorithm to solve a Sudoku puzzle
 // Uses the DancingLinks class to perform the Exact Cover problem solving via Algorithm X
-class RMIT_Sudoku_Solver {
-    // Flag to indicate if a solution has been found, used to stop further search
-    private boolean solutionFound;
-    // 9x9 grid to store the solved Sudoku puzzle
+class RMIT_Sudoku_Solver implements Solver {
+    // Backtracks of the shortest attempts of solveRacing()'s Luby schedule
+    static final long DEFAULT_RESTART_UNIT = 256;
+    // Outcome of the last search call, null until the current puzzle has been searched
+    private SolveStatus status;
+    // Board size N (9 for classic Sudoku, 16 or 25 for larger boards)
+    private int n;
+    // Which matrix implementation to build when the board size changes
+    private final boolean useArrayMatrix;
+    // N x N grid to store the solved Sudoku puzzle
     private int[][] result;
-    // Reference to the DancingLinks object that manages the DLX matrix
-    private DancingLinks dlMatrix;
+    // Reference to the DLX matrix (array-based or object-based) the search runs on
+    private DLXMatrix dlMatrix;
+    // Iterative Algorithm X over dlMatrix; keeps its stack between calls so a stopped search can continue
+    private DLXSearch search;
+    // Forced rows and dominated-column eliminations applied to dlMatrix before the search, once per puzzle
+    private Presolver presolver;
+    // Set when a given is out of range or repeats a digit in a row, column or box: the puzzle is INVALID and its
+    // givens never reach the matrix
+    private boolean invalid;
+    // Set when the givens and the presolve leave a constraint column without rows: the puzzle is UNSOLVABLE
+    // without any search
+    private boolean emptyColumn;
+    // Counters of the current puzzle's search, null when SearchStats.ENABLED is off
+    private final SearchStats stats = SearchStats.ENABLED ? new SearchStats() : null;
+    // Random source and restart schedule of the search (see DLXSearch), null for the deterministic order
+    private SplittableRandom random;
+    private RestartSchedule restarts;
 
-    // Constructor: Initializes the solver with a given Sudoku puzzle
-    // @param puzzle The initial 9x9 Sudoku grid, where 0 represents empty cells
+    // Constructor: Initializes the solver with a given Sudoku puzzle, using the array-based matrix
+    // @param puzzle The initial N x N Sudoku grid (9x9, 16x16, 25x25...), where 0 represents empty cells
     public RMIT_Sudoku_Solver(int[][] puzzle) {
+        this(puzzle, true);
+    }
+
+    // Constructor: Initializes the solver with a given Sudoku puzzle and a choice of matrix implementation
+    // @param puzzle The initial N x N Sudoku grid, where 0 represents empty cells
+    // @param useArrayMatrix true for ArrayDancingLinks (flat int arrays), false for the DancingLinks node graph
+    // @throws IllegalArgumentException if the puzzle is not an N x N grid of a supported size
+    public RMIT_Sudoku_Solver(int[][] puzzle, boolean useArrayMatrix) {
+        PuzzleValidator.checkShape(puzzle);
+        this.useArrayMatrix = useArrayMatrix;
+        allocate(puzzle);
+    }
+
+    // Creates the result grid, the DLX matrix and the search for the puzzle's board size
+    private void allocate(int[][] puzzle) {
+        n = puzzle.length;
         // Initialize the result grid by copying the input puzzle
-        result = new int[9][9];
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
+        result = new int[n][n];
+        copyGivens(puzzle);
+        // Build the empty-board DLX matrix; the givens are selected as rows below
+        int[][] empty = new int[n][n];
+        dlMatrix = useArrayMatrix ? new ArrayDancingLinks(empty) : new DancingLinks(empty);
+        // At most one row per cell can be selected
+        search = new DLXSearch(dlMatrix, n * n);
+        search.setRandomOrder(random, restarts);
+        // A box meets a row or column in boxSize cells, the most rows a box-line domination can involve
+        presolver = new Presolver(n * n, ArrayDancingLinks.boxSizeOf(n));
+        dlMatrix.setStats(stats);
+        search.setStats(stats);
+        presolver.setStats(stats);
+        loadGivens();
+    }
+
+    // Validates the givens, selects the matrix row of every given, then presolves the rest of the board
+    // Invalid givens are rejected before they touch the matrix, and a constraint left without candidates is found
+    // by the presolve, so neither kind of bad input ever reaches the search
+    // The counters are cleared after the givens, so they only measure the presolve and the search
+    private void loadGivens() {
+        invalid = !PuzzleValidator.hasValidGivens(result);
+        emptyColumn = false;
+        if (invalid) {
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (result[i][j] != 0) {
+                    // Cannot fail on validated givens
+                    dlMatrix.selectRow((i * n + j) * n + result[i][j] - 1);
+                }
+            }
+        }
+        if (stats != null) {
+            stats.clear();
+        }
+        // The search starts from the presolved matrix
+        emptyColumn = !presolver.run(dlMatrix);
+    }
+
+    private void copyGivens(int[][] puzzle) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
                 result[i][j] = puzzle[i][j];
             }
         }
-        // Set solution flag to false initially
-        solutionFound = false;
-        // Create a DancingLinks instance to build the DLX matrix based on the puzzle
-        dlMatrix = new DancingLinks(result);
     }
 
-    // Solves the Sudoku puzzle using the Dancing Links algorithm
-    // @return The solved 9x9 Sudoku grid
+    // Makes the search break column ties and pick starting rows at random, restarting on a schedule
+    // Applies from the next puzzle (reset or solve(puzzle)); the solutions found do not depend on the order when a
+    // puzzle has a single one, only the time it takes. Restarts only pay off on solvable puzzles: proving a puzzle
+    // unsolvable takes a whole tree, which the attempts before the last one search for nothing.
+    // @param seed Seed of the random choices; equal seeds repeat the same search
+    // @param restarts Backtrack budgets between restarts, or null to randomize without restarting
+    public void setRandomOrder(long seed, RestartSchedule restarts) {
+        this.random = new SplittableRandom(seed);
+        this.restarts = restarts;
+        search.setRandomOrder(random, restarts);
+    }
+
+    // Goes back to the deterministic search order from the next puzzle on
+    public void setDeterministicOrder() {
+        random = null;
+        restarts = null;
+        search.setRandomOrder(null, null);
+    }
+
+    // Reuses this solver for another puzzle, keeping the result grid and the matrix allocated
+    // (they are only rebuilt if the board size changes)
+    // The grid returned by a previous solve() is overwritten, so callers must copy it first if they keep it
+    // @param puzzle The next N x N Sudoku grid, where 0 represents empty cells
+    // @throws IllegalArgumentException if the puzzle is not an N x N grid of a supported size
+    public void reset(int[][] puzzle) {
+        PuzzleValidator.checkShape(puzzle);
+        status = null;
+        if (puzzle.length != n) {
+            allocate(puzzle);
+            return;
+        }
+        copyGivens(puzzle);
+        dlMatrix.reset();
+        search.reset();
+        loadGivens();
+    }
+
+    // Reuses this solver for a 9x9 puzzle stored as a PackedPuzzles record, decoding it straight into the givens
+    // A corrupt record (a nibble above 9, a repeated digit) makes the puzzle INVALID
+    // @param records Buffer holding the record; its position is not changed, so threads may share it
+    // @param offset Index of the record's first byte in the buffer
+    public void reset(ByteBuffer records, int offset) {
+        status = null;
+        if (n != 9) {
+            allocate(new int[9][9]);
+        }
+        PackedPuzzles.decode(records, offset, result);
+        dlMatrix.reset();
+        search.reset();
+        loadGivens();
+    }
+
+    // Resets the solver to another puzzle and solves it; the returned grid is reused by the next call
+    @Override
+    public int[][] solve(int[][] puzzle) {
+        reset(puzzle);
+        return solve();
+    }
+
+    // Resets the solver to another puzzle and solves it into the caller's grid
+    // Once the solver has seen a puzzle of this size, the call allocates nothing
+    @Override
+    public boolean solve(int[][] puzzle, int[][] solution) {
+        reset(puzzle);
+        return solveInto(solution);
+    }
+
+    // Solves the current puzzle (see reset) into the caller's grid, without a time limit
+    // @param solution N x N grid that receives the solved grid, or the givens if there is no solution
+    // @return true if the puzzle was solved
+    public boolean solveInto(int[][] solution) {
+        boolean solved = runSearch(DLXSearch.NO_DEADLINE, null) == SolveStatus.SOLVED;
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(result[i], 0, solution[i], 0, n);
+        }
+        return solved;
+    }
+
+    // Solves the Sudoku puzzle using the Dancing Links algorithm, without a time limit
+    // @return The solved N x N Sudoku grid
     public int[][] solve() {
-        // Start the recursive DLX search with depth 0 and the master node
-        dlSearch(0, dlMatrix.getMasterNode());
+        runSearch(DLXSearch.NO_DEADLINE, null);
         // Return the solved grid (or the original if no solution is found)
         return result;
     }
 
-    // Implements Algorithm X using Dancing Links for efficient Exact Cover solving
-    // Recursively searches for a solution by covering/uncovering columns and rows
-    // @param k The current depth of the recursion (number of rows selected)
-    // @param masterNode The root node of the DLX matrix
-    private void dlSearch(int k, DLHeaderNode masterNode) {
-        // Base case: If a solution is found or all columns are covered (masterNode.right == masterNode),
-        // mark the solution as found and return
-        if (solutionFound || masterNode.right == masterNode) {
-            solutionFound = true;
-            return;
+    // Solves the puzzle, giving up after a timeout
+    // @param timeout Maximum time to search
+    // @param unit Unit of the timeout
+    // @return The result; TIMED_OUT if the timeout expired first
+    public SolveResult solve(long timeout, TimeUnit unit) {
+        return solveUntil(System.nanoTime() + unit.toNanos(timeout), null);
+    }
+
+    // Solves the puzzle until a solution is found, the search is exhausted or it has to stop
+    // If a previous call returned TIMED_OUT, CANCELLED or PAUSED, the search continues from where it stopped,
+    // so a paused or timed-out puzzle can be resumed later with a new deadline
+    // @param deadlineNanos System.nanoTime() value after which the search stops, or DLXSearch.NO_DEADLINE
+    // @param token Cancellation token polled during the search, or null
+    // @return The status (SOLVED, UNSOLVABLE, INVALID or where the search stopped), the grid (solved, or the
+    //         givens if not solved) and the search counters if enabled
+    public SolveResult solveUntil(long deadlineNanos, CancellationToken token) {
+        runSearch(deadlineNanos, token);
+        return new SolveResult(status, result, stats != null ? stats.copy() : null);
+    }
+
+    // Runs or continues the search of the current puzzle and decodes a solution into the result grid
+    // @return The status of the puzzle after the call
+    private SolveStatus runSearch(long deadlineNanos, CancellationToken token) {
+        if (invalid) {
+            status = SolveStatus.INVALID;
+        } else if (emptyColumn) {
+            status = SolveStatus.UNSOLVABLE;
+        } else if (status != SolveStatus.SOLVED && status != SolveStatus.UNSOLVABLE) {
+            status = search.run(deadlineNanos, token);
+            if (status == SolveStatus.SOLVED) {
+                // Decode the presolved and the searched rows into the result grid
+                placePresolvedRows();
+                for (int k = 0; k < search.getDepth(); k++) {
+                    placeRow(search.getRowNumber(k));
+                }
+            }
         }
+        return status;
+    }
 
-        // Select the column with the fewest 1s to minimize branching (heuristic for efficiency)
-        DLHeaderNode c = dlMatrix.getSmallestColumn();
-        // Cover the selected column, removing it and its associated rows from the matrix
-        dlMatrix.coverColumn(c);
-
-        // Iterate through each row in the selected column
-        DLBaseNode r = c.down;
-        while (r != c && !solutionFound) {
-            // Cast the row node to access its row number
-            DLNode rowNode = (DLNode) r;
-            // Decode the row number into Sudoku grid coordinates and number
-            int row = rowNode.rowNumber / 81;        // Row of the Sudoku grid (0-8)
-            int col = (rowNode.rowNumber % 81) / 9;  // Column of the Sudoku grid (0-8)
-            int num = (rowNode.rowNumber % 9) + 1;   // Number to place (1-9)
-            // Place the number in the result grid
-            result[row][col] = num;
+    // Counts the solutions of the puzzle, stopping as soon as limit solutions have been found
+    // Solutions are only counted, never written to the grid, so a uniqueness check costs two search leaves at most
+    // @param limit Maximum number of solutions to count (2 is enough to tell unique from ambiguous)
+    // @return The number of solutions, at most limit; 0 for an invalid puzzle
+    public long countSolutions(long limit) {
+        if (invalid || emptyColumn) {
+            return 0;
+        }
+        // Start from the puzzle's givens even if a previous solve left the matrix covered
+        search.unwind();
+        if (stats != null) {
+            stats.clear();
+        }
+        long count = 0;
+        while (count < limit && search.run(DLXSearch.NO_DEADLINE, null) == SolveStatus.SOLVED) {
+            count++;
+        }
+        search.unwind();
+        // A solution decoded by an earlier solve call is still in the grid and a proof of unsolvability still
+        // holds, so those statuses stay; a stopped search was unwound above and starts over on the next call
+        if (status != SolveStatus.SOLVED && status != SolveStatus.UNSOLVABLE) {
+            status = null;
+        }
+        return count;
+    }
+
+    // Checks that the puzzle has exactly one solution
+    // @return true if there is one solution, false if there is none or more than one
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
 
-            // Cover all columns associated with this row (i.e., other constraints)
-            DLBaseNode j = r.right;
-            while (j != r) {
-                dlMatrix.coverColumn(((DLNode) j).header);
-                j = j.right;
+    // Hands every solution of the puzzle to a callback, one at a time, in the solver's own result grid
+    // Only the empty cells are rewritten for each solution; the grid holds the givens again afterwards
+    // @param callback Receives each solution and decides whether to continue
+    // @return The number of solutions passed to the callback
+    public long forEachSolution(SolutionCallback callback) {
+        if (invalid || emptyColumn) {
+            return 0;
+        }
+        search.unwind();
+        if (stats != null) {
+            stats.clear();
+        }
+        long count = 0;
+        int depth = 0;
+        while (search.run(DLXSearch.NO_DEADLINE, null) == SolveStatus.SOLVED) {
+            if (count++ == 0) {
+                // Common to every solution
+                placePresolvedRows();
+            }
+            depth = search.getDepth();
+            for (int k = 0; k < depth; k++) {
+                placeRow(search.getRowNumber(k));
+            }
+            if (!callback.onSolution(result)) {
+                break;
             }
+        }
+        // Every solution fills the same empty cells, so clearing the last one restores the givens
+        for (int k = 0; k < depth; k++) {
+            clearRow(search.getRowNumber(k));
+        }
+        if (count > 0) {
+            for (int k = 0; k < presolver.getRowCount(); k++) {
+                clearRow(presolver.getRowNumber(k));
+            }
+        }
+        search.unwind();
+        // The grid holds the givens again, whatever an earlier solve call had decoded into it
+        status = null;
+        return count;
+    }
 
-            // Recursively continue the search with the next depth
-            dlSearch(k + 1, masterNode);
+    // Counters of the last countSolutions/forEachSolution call, or of the current puzzle's solve calls so far
+    // @return The solver's live counters (updated by its next call), or null when SearchStats.ENABLED is off
+    public SearchStats getStats() {
+        return stats;
+    }
 
-            // If a solution is found, exit early
-            if (solutionFound) return;
+    // Asks a running solve call (on another thread) to stop and return PAUSED; the next solveUntil call resumes it
+    public void pause() {
+        search.pause();
+    }
 
-            // Backtrack: Reset the cell to 0 (undo the move)
-            result[row][col] = 0;
+    // Writes the move of a matrix row into the result grid
+    // @param rowNumber Matrix row: (num - 1) + row * N^2 + col * N
+    private void placeRow(int rowNumber) {
+        if (n == 9) {
+            // 9x9 fast path: constant divisors compile to multiplications
+            int row = rowNumber / 81;        // Row of the Sudoku grid (0-8)
+            int col = (rowNumber % 81) / 9;  // Column of the Sudoku grid (0-8)
+            int num = (rowNumber % 9) + 1;   // Number to place (1-9)
+            result[row][col] = num;
+        } else {
+            int cell = rowNumber / n;
+            result[cell / n][cell % n] = (rowNumber % n) + 1;
+        }
+    }
 
-            // Uncover the columns associated with this row in reverse order
-            j = r.left;
-            while (j != r) {
-                dlMatrix.uncoverColumn(((DLNode) j).header);
-                j = j.left;
+    // Writes the rows selected by the presolve into the result grid
+    private void placePresolvedRows() {
+        for (int k = 0; k < presolver.getRowCount(); k++) {
+            placeRow(presolver.getRowNumber(k));
+        }
+    }
+
+    // Empties the cell of a matrix row in the result grid
+    private void clearRow(int rowNumber) {
+        int cell = rowNumber / n;
+        result[cell / n][cell % n] = 0;
+    }
+
+    // Solves the puzzle with the first levels of the search spread across a ForkJoinPool
+    // Each task searches on its own copy of the array matrix, so this works with either matrix implementation
+    // @param pool The pool to run the search tasks on
+    // @param splitDepth Number of branching levels to fork; 0 searches sequentially in one task
+    // @return The solved N x N Sudoku grid (or the original if no solution is found)
+    public int[][] solveParallel(ForkJoinPool pool, int splitDepth) {
+        if (invalid || emptyColumn) {
+            status = invalid ? SolveStatus.INVALID : SolveStatus.UNSOLVABLE;
+            return result;
+        }
+        AtomicReference<int[]> rows = new AtomicReference<>();
+        ArrayDancingLinks matrix = new ArrayDancingLinks(result);
+        Presolver tasksPresolver = new Presolver(n * n, ArrayDancingLinks.boxSizeOf(n));
+        if (tasksPresolver.run(matrix)) {
+            pool.invoke(new ParallelDLSearch(matrix, n * n, splitDepth, rows, new CancellationToken()));
+        }
+        if (rows.get() == null) {
+            status = SolveStatus.UNSOLVABLE;
+        } else {
+            status = SolveStatus.SOLVED;
+            for (int k = 0; k < tasksPresolver.getRowCount(); k++) {
+                placeRow(tasksPresolver.getRowNumber(k));
+            }
+            for (int rowNumber : rows.get()) {
+                placeRow(rowNumber);
             }
+        }
+        return result;
+    }
 
-            // Move to the next row in the column
-            r = r.down;
+    // Races differently ordered searches of the puzzle and keeps the first to finish
+    // Search 0 uses the deterministic order, the others random orders with restarts, each on its own solver (and
+    // matrix); the winner cancels the rest. Search 0 never restarts, so an unsolvable puzzle costs no more than a
+    // plain solve given a free core. A long run of one order is often a short run of another, so the race
+    // cuts the tail of the solve times rather than the mean. Call after reset(), before solving the puzzle here.
+    // @param pool The pool to run the searches on; it needs searches threads free for a real race
+    // @param searches Number of searches raced
+    // @param seed Seed of the random orders, search k using seed + k
+    // @param restarts Backtrack budgets between restarts of the random searches, or null for none
+    // @return The solved N x N Sudoku grid (or the original if no solution is found)
+    public int[][] solveRacing(ExecutorService pool, int searches, long seed, RestartSchedule restarts) {
+        if (invalid || emptyColumn) {
+            status = invalid ? SolveStatus.INVALID : SolveStatus.UNSOLVABLE;
+            return result;
+        }
+        CancellationToken token = new CancellationToken();
+        AtomicReference<SolveResult> winner = new AtomicReference<>();
+        List<Callable<Void>> racers = new ArrayList<>();
+        for (int k = 0; k < searches; k++) {
+            int racer = k;
+            racers.add(() -> {
+                RMIT_Sudoku_Solver solver = new RMIT_Sudoku_Solver(new int[n][n], useArrayMatrix);
+                if (racer > 0) {
+                    solver.setRandomOrder(seed + racer, restarts);
+                }
+                solver.reset(result);
+                SolveResult outcome = solver.solveUntil(DLXSearch.NO_DEADLINE, token);
+                // SOLVED and UNSOLVABLE are both final answers; CANCELLED means another search won
+                if (outcome.getStatus() != SolveStatus.CANCELLED && winner.compareAndSet(null, outcome)) {
+                    token.cancel();
+                }
+                return null;
+            });
+        }
+        try {
+            pool.invokeAll(racers);
+        } catch (InterruptedException e) {
+            token.cancel();
+            Thread.currentThread().interrupt();
+        }
+        SolveResult outcome = winner.get();
+        if (outcome != null) {
+            status = outcome.getStatus();
+            if (status == SolveStatus.SOLVED) {
+                for (int i = 0; i < n; i++) {
+                    System.arraycopy(outcome.getGrid()[i], 0, result[i], 0, n);
+                }
+            }
         }
+        return result;
+    }
+
+    // Races one search per worker of the common pool, with a Luby restart schedule
+    // @return The solved N x N Sudoku grid (or the original if no solution is found)
+    public int[][] solveRacing() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return solveRacing(pool, Math.max(2, pool.getParallelism()), System.nanoTime(),
+                RestartSchedule.luby(DEFAULT_RESTART_UNIT));
+    }
 
-        // Uncover the selected column to restore the matrix for backtracking
-        dlMatrix.uncoverColumn(c);
+    // Solves the puzzle in parallel on the common pool, forking enough levels to keep every core busy
+    // @return The solved N x N Sudoku grid (or the original if no solution is found)
+    public int[][] solveParallel() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // Each forked level roughly doubles the number of tasks; aim for about 4 tasks per worker
+        int splitDepth = 32 - Integer.numberOfLeadingZeros(pool.getParallelism() * 4 - 1);
+        return solveParallel(pool, splitDepth);
     }
-}
\ No newline at end of file
+}
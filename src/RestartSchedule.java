@@ -0,0 +1,68 @@
+// Backtrack budgets between the restarts of a randomized DLXSearch
+// Backtracking search times are heavy-tailed: a few unlucky early choices can trap the search in a huge subtree
+// that a different order would have avoided. A restarting search gives up after budget(k) backtracks in its k-th
+// attempt and starts over from the root with fresh random choices. Budgets grow without bound, so a restarting
+// search still finishes, and still proves a puzzle unsolvable, in its last attempt.
+// - Luby: unit * 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ... is within a log factor of the best fixed budget
+//   for any run-time distribution, without knowing the distribution
+// - geometric: first * factor^k gives up fewer attempts on puzzles that simply need a big tree
+class RestartSchedule {
+    private final long unit;
+    // Growth factor of the geometric schedule, 0 for Luby
+    private final double factor;
+
+    private RestartSchedule(long unit, double factor) {
+        if (unit < 1) {
+            throw new IllegalArgumentException("Budget must be at least 1 backtrack: " + unit);
+        }
+        this.unit = unit;
+        this.factor = factor;
+    }
+
+    // Luby schedule: budget(k) = unit * lubyTerm(k + 1)
+    // @param unit Backtracks of the shortest attempts
+    public static RestartSchedule luby(long unit) {
+        return new RestartSchedule(unit, 0);
+    }
+
+    // Geometric schedule: budget(k) = first * factor^k
+    // @param first Backtracks of the first attempt
+    // @param factor Growth per restart, greater than 1
+    public static RestartSchedule geometric(long first, double factor) {
+        if (!(factor > 1)) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1: " + factor);
+        }
+        return new RestartSchedule(first, factor);
+    }
+
+    // Backtracks allowed before the next restart
+    // @param restarts Number of restarts so far, 0 for the first attempt
+    public long budget(int restarts) {
+        if (factor == 0) {
+            long term = lubyTerm(restarts + 1);
+            return term > Long.MAX_VALUE / unit ? Long.MAX_VALUE : unit * term;
+        }
+        // The double saturates instead of overflowing; the cast caps it at Long.MAX_VALUE
+        return (long) Math.min(unit * Math.pow(factor, restarts), Long.MAX_VALUE);
+    }
+
+    // The i-th term of the Luby sequence (i >= 1): 2^(k-1) when i = 2^k - 1, otherwise the term i - (2^(k-1) - 1)
+    // for the largest k with 2^(k-1) - 1 < i, i.e. the sequence so far repeated before the next power of two
+    static long lubyTerm(int i) {
+        while (true) {
+            int k = 1;
+            while ((1 << k) - 1 < i) {
+                k++;
+            }
+            if ((1 << k) - 1 == i) {
+                return 1L << (k - 1);
+            }
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return factor == 0 ? "luby(" + unit + ")" : "geometric(" + unit + ", " + factor + ")";
+    }
+}
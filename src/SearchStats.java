@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+// Counters describing one search: how big the search tree was and how much matrix work it took
+// Comparing the two tells a puzzle with a large tree apart from one that is slow per node.
+// Counting is off unless the JVM is started with -Dsudoku.stats=true. ENABLED is a static final constant, so
+// with counting off the JIT folds every "if (SearchStats.ENABLED ...)" block away and the search runs uncounted.
+class SearchStats {
+    // Whether the search and the matrices update counters at all
+    static final boolean ENABLED = Boolean.getBoolean("sudoku.stats");
+    // Branching factors from 0 to MAX_BRANCHING - 1 get their own histogram bucket, larger ones share the last
+    private static final int MAX_BRANCHING = 16;
+
+    // Rows tried by the search (nodes of the search tree below the root)
+    long nodes;
+    // Times the search went back up a level to try the next row or give up on a column
+    long backtracks;
+    // Times a randomized search gave up its tree and started over (see RestartSchedule)
+    long restarts;
+    // Calls to coverColumn and uncoverColumn
+    long coverCalls;
+    long uncoverCalls;
+    // Link writes done by cover/uncover: 2 per header, 2 per row node removed or restored
+    long linkUpdates;
+    // Rows selected and rows removed by the presolve before the search
+    long forced;
+    long eliminated;
+    // Deepest level reached (number of rows selected at once)
+    int maxDepth;
+    // Number of columns chosen by getSmallestColumn, and the sum of their sizes
+    long choices;
+    long branchingSum;
+    // branching[s]: number of choices where the chosen column had s rows left (the last bucket collects the rest)
+    final long[] branching = new long[MAX_BRANCHING + 1];
+
+    // Sets every counter back to zero
+    void clear() {
+        nodes = 0;
+        backtracks = 0;
+        restarts = 0;
+        coverCalls = 0;
+        uncoverCalls = 0;
+        linkUpdates = 0;
+        forced = 0;
+        eliminated = 0;
+        maxDepth = 0;
+        choices = 0;
+        branchingSum = 0;
+        Arrays.fill(branching, 0);
+    }
+
+    // Records the column chosen by getSmallestColumn
+    // @param size Number of rows left in the column, i.e. the branching factor of this search node
+    void recordChoice(int size) {
+        choices++;
+        branchingSum += size;
+        branching[Math.min(size, MAX_BRANCHING)]++;
+    }
+
+    // Returns a copy that later searches do not update
+    SearchStats copy() {
+        SearchStats copy = new SearchStats();
+        copy.add(this);
+        return copy;
+    }
+
+    // Adds the counters of another search to these, e.g. to total a batch
+    // maxDepth becomes the larger of the two
+    void add(SearchStats other) {
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        restarts += other.restarts;
+        coverCalls += other.coverCalls;
+        uncoverCalls += other.uncoverCalls;
+        linkUpdates += other.linkUpdates;
+        forced += other.forced;
+        eliminated += other.eliminated;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        choices += other.choices;
+        branchingSum += other.branchingSum;
+        for (int s = 0; s <= MAX_BRANCHING; s++) {
+            branching[s] += other.branching[s];
+        }
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    public long getCoverCalls() {
+        return coverCalls;
+    }
+
+    public long getUncoverCalls() {
+        return uncoverCalls;
+    }
+
+    public long getLinkUpdates() {
+        return linkUpdates;
+    }
+
+    public long getForced() {
+        return forced;
+    }
+
+    public long getEliminated() {
+        return eliminated;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    // Average size of the columns chosen by getSmallestColumn; 1.0 means the search never had to guess
+    public double getMeanBranching() {
+        return choices == 0 ? 0.0 : (double) branchingSum / choices;
+    }
+
+    // Number of choices with a given branching factor
+    // @param size Column size; sizes of MAX_BRANCHING and above all return the shared last bucket
+    public long getBranchingCount(int size) {
+        return branching[Math.min(size, MAX_BRANCHING)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder histogram = new StringBuilder();
+        for (int s = 0; s <= MAX_BRANCHING; s++) {
+            if (branching[s] != 0) {
+                histogram.append(histogram.length() == 0 ? "" : " ")
+                        .append(s).append(s == MAX_BRANCHING ? "+:" : ":").append(branching[s]);
+            }
+        }
+        return String.format("forced=%d eliminated=%d nodes=%d backtracks=%d restarts=%d cover=%d uncover=%d"
+                        + " links=%d maxDepth=%d branching=%.2f [%s]", forced, eliminated, nodes, backtracks, restarts,
+                coverCalls, uncoverCalls, linkUpdates, maxDepth, getMeanBranching(), histogram);
+    }
+}
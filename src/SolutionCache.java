@@ -0,0 +1,86 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded least-recently-used map from canonical puzzles (CanonicalForm.key()) to their canonical solutions
+// Every entry holds one 81-character key and one 81-byte solution, so bounding the entry count bounds the memory.
+// Safe to share between threads: every operation locks the cache, and each is a single hash lookup.
+class SolutionCache {
+    // Value cached for puzzles without a solution, so they are not searched again either
+    static final byte[] NO_SOLUTION = new byte[0];
+
+    private final int capacity;
+    private final LinkedHashMap<String, byte[]> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Constructor: Creates an empty cache
+    // @param capacity Maximum number of puzzles kept; the least recently used one is evicted beyond that
+    public SolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        // Access order: get() moves an entry to the most recently used end
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                if (size() > SolutionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Looks up a canonical puzzle and counts a hit or a miss
+    // @return The canonical solution, NO_SOLUTION, or null if the puzzle is not cached
+    public synchronized byte[] get(String key) {
+        byte[] solution = entries.get(key);
+        if (solution != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return solution;
+    }
+
+    // Stores the solution of a canonical puzzle, evicting the least recently used entry if the cache is full
+    // @param solution The canonical solution (81 cells), or NO_SOLUTION; the cache keeps the array
+    public synchronized void put(String key, byte[] solution) {
+        entries.put(key, solution);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Fraction of lookups that found their puzzle, 0 before the first lookup
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                entries.size(), capacity, hits, misses, 100.0 * getHitRate(), evictions);
+    }
+}
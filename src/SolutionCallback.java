@@ -0,0 +1,7 @@
+// Receives each solution found by RMIT_Sudoku_Solver.forEachSolution
+interface SolutionCallback {
+    // Called once per solution with the solver's own result grid, which is overwritten by the next solution
+    // @param grid The solved 9x9 grid; copy it to keep it
+    // @return true to keep searching, false to stop
+    boolean onSolution(int[][] grid);
+}
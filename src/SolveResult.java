@@ -0,0 +1,36 @@
+// Status and grid returned by a solve call
+class SolveResult {
+    private final SolveStatus status;
+    private final int[][] grid;
+    private final SearchStats stats;
+
+    SolveResult(SolveStatus status, int[][] grid) {
+        this(status, grid, null);
+    }
+
+    SolveResult(SolveStatus status, int[][] grid, SearchStats stats) {
+        this.status = status;
+        this.grid = grid;
+        this.stats = stats;
+    }
+
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == SolveStatus.SOLVED;
+    }
+
+    // The solved grid if the status is SOLVED, otherwise the puzzle's givens (as given, even if INVALID)
+    // The array belongs to the solver and is overwritten by its next solve call
+    public int[][] getGrid() {
+        return grid;
+    }
+
+    // Search counters of the puzzle up to this result (all resumed calls included), or null when
+    // SearchStats.ENABLED is off; a snapshot that later calls do not change
+    public SearchStats getStats() {
+        return stats;
+    }
+}
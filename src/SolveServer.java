@@ -0,0 +1,297 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local TCP solve endpoint speaking the BatchSolver line format
+// A client sends one 81-character puzzle per line ('1'-'9' for givens, '0' or '.' for empty cells) and gets one
+// line back per request, in request order:
+// - the 81-digit solution, or 81 '0's if the puzzle has no solution (as in BatchSolver output files)
+// - BUSY if the server shed the request because its queue was full; the client may retry later
+// - ERROR <reason> for a malformed line
+// The line STATS returns the server's counters and latency percentiles on one line.
+// Every connection is served by its own virtual thread, which only parses and writes. The lines a client has
+// pipelined (sent without waiting for the answers) are grouped into one batch of up to MAX_BATCH puzzles, and the
+// batch is queued for a fixed pool of platform worker threads, each reusing one solver (and so one DLX matrix)
+// for every puzzle it solves. The queue is bounded: when it is full the whole batch is answered BUSY at once
+// instead of letting latency grow without bound.
+// Usage: java SolveServer [port] [workers] [queueCapacity]
+public class SolveServer implements Closeable {
+    static final int DEFAULT_PORT = 8181;
+    // Largest batch read from one connection at a time
+    static final int MAX_BATCH = 64;
+    // Number of cells (and characters) per puzzle
+    private static final int CELLS = 81;
+
+    private final ServerSocket serverSocket;
+    // Batches waiting for a worker; bounded so overload is shed instead of queued
+    private final BlockingQueue<Batch> queue;
+    private final ExecutorService workers;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final int workerCount;
+    private volatile boolean closed;
+
+    // Counters exposed by STATS and getStats()
+    private final long startTime = System.nanoTime();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    // Puzzles answered with a solution or with 81 0s
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    // Time from reading a batch off the socket to its solutions being ready, recorded once per puzzle
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // Puzzles read from one connection, solved together by one worker
+    private static final class Batch {
+        // Cells of every puzzle, one byte (0-9) per cell
+        final byte[] puzzles = new byte[MAX_BATCH * CELLS];
+        // Response lines of every puzzle, 81 digits + '\n' each, filled by the worker
+        final byte[] solutions = new byte[MAX_BATCH * (CELLS + 1)];
+        int count;
+        long receivedNanos;
+        CountDownLatch done;
+    }
+
+    // Constructor: Binds the server to a port of the loopback interface and starts the workers
+    // Connections are accepted once start() is called
+    // @param port TCP port, 0 for any free port (see getPort())
+    // @param workerCount Number of solver threads, typically the number of cores
+    // @param queueCapacity Number of batches that may wait for a worker before requests are shed
+    public SolveServer(int port, int workerCount, int queueCapacity) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int workerCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : workerCount * 16;
+        SolveServer server = new SolveServer(port, workerCount, queueCapacity);
+        System.out.println("Listening on " + server.serverSocket.getLocalSocketAddress() + " with " + workerCount
+                + " workers, queue of " + queueCapacity + " batches");
+        server.start();
+    }
+
+    // Accepts connections on a virtual thread of their own until close() is called
+    // Returns at once; the accept loop itself runs on a virtual thread too
+    public void start() {
+        connections.execute(() -> {
+            while (!closed) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    if (!closed) {
+                        System.err.println("Accept failed: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    // Port the server listens on
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Stops accepting connections, closes the open ones and stops the workers
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        connections.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // Reads the requests of one connection, batch by batch, and writes the responses in request order
+    private void serve(Socket socket) {
+        openConnections.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                     StandardCharsets.US_ASCII));
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            socket.setTcpNoDelay(true);
+            Batch batch = new Batch();
+            // Per request of the batch, the error message of a malformed line (null for puzzles)
+            String[] lineErrors = new String[MAX_BATCH];
+            String line = in.readLine();
+            while (line != null && !closed) {
+                if (line.isEmpty()) {
+                    line = in.readLine();
+                    continue;
+                }
+                if (line.equals("STATS")) {
+                    write(out, getStats());
+                    out.flush();
+                    line = in.readLine();
+                    continue;
+                }
+                // Take the lines the client has already sent, up to a command, a full batch or an empty buffer
+                int requests = 0;
+                batch.count = 0;
+                String next = null;
+                while (true) {
+                    lineErrors[requests] = parse(line, batch);
+                    requests++;
+                    if (requests == MAX_BATCH || !in.ready()) {
+                        break;
+                    }
+                    next = in.readLine();
+                    if (next == null || next.isEmpty() || next.equals("STATS")) {
+                        break;
+                    }
+                    line = next;
+                    next = null;
+                }
+                batch.receivedNanos = System.nanoTime();
+                boolean accepted = batch.count > 0 && submit(batch);
+                respond(out, batch, lineErrors, requests, accepted);
+                out.flush();
+                line = next != null ? next : in.readLine();
+            }
+        } catch (IOException e) {
+            // The client went away; nothing to answer
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            openConnections.decrementAndGet();
+        }
+    }
+
+    // Appends a puzzle line to a batch
+    // @return null if the line was added, otherwise the reason it was rejected
+    private static String parse(String line, Batch batch) {
+        if (line.length() != CELLS) {
+            return "expected 81 cells, got " + line.length();
+        }
+        int at = batch.count * CELLS;
+        for (int i = 0; i < CELLS; i++) {
+            char ch = line.charAt(i);
+            if (ch >= '1' && ch <= '9') {
+                batch.puzzles[at + i] = (byte) (ch - '0');
+            } else if (ch == '0' || ch == '.') {
+                batch.puzzles[at + i] = 0;
+            } else {
+                return "invalid character '" + ch + "'";
+            }
+        }
+        batch.count++;
+        return null;
+    }
+
+    // Queues a batch for the workers and waits for it to be solved
+    // @return false if the queue was full and the batch was shed
+    private boolean submit(Batch batch) throws InterruptedException {
+        batch.done = new CountDownLatch(1);
+        if (!queue.offer(batch)) {
+            shed.addAndGet(batch.count);
+            return false;
+        }
+        batches.incrementAndGet();
+        // Blocks only this connection's virtual thread
+        batch.done.await();
+        latency.record(System.nanoTime() - batch.receivedNanos, batch.count);
+        completed.addAndGet(batch.count);
+        return true;
+    }
+
+    // Writes one response line per request of a batch, in request order
+    private void respond(OutputStream out, Batch batch, String[] lineErrors, int requests, boolean accepted)
+            throws IOException {
+        int puzzle = 0;
+        for (int r = 0; r < requests; r++) {
+            if (lineErrors[r] != null) {
+                errors.incrementAndGet();
+                write(out, "ERROR " + lineErrors[r]);
+            } else if (!accepted) {
+                write(out, "BUSY");
+            } else {
+                out.write(batch.solutions, puzzle * (CELLS + 1), CELLS + 1);
+            }
+            if (lineErrors[r] == null) {
+                puzzle++;
+            }
+        }
+    }
+
+    private static void write(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.US_ASCII));
+        out.write('\n');
+    }
+
+    // Worker loop: takes batches off the queue and solves them with this thread's own solver
+    private void work() {
+        Solver solver = SolverPool.get("dlx");
+        int[][] grid = new int[9][9];
+        int[][] solution = new int[9][9];
+        try {
+            while (!closed) {
+                Batch batch = queue.take();
+                try {
+                    solveBatch(solver, grid, solution, batch);
+                } finally {
+                    batch.done.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            // close() stops the workers
+        }
+    }
+
+    // Solves every puzzle of a batch into its response lines, allocating nothing
+    private static void solveBatch(Solver solver, int[][] grid, int[][] solution, Batch batch) {
+        int at = 0;
+        for (int p = 0; p < batch.count; p++) {
+            int cell = p * CELLS;
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    grid[i][j] = batch.puzzles[cell++];
+                }
+            }
+            boolean valid = solver.solve(grid, solution);
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    batch.solutions[at++] = (byte) ('0' + (valid ? solution[i][j] : 0));
+                }
+            }
+            batch.solutions[at++] = '\n';
+        }
+    }
+
+    // Latency of the solved requests, from reading their batch to their solutions being ready
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    // One line of counters: connections, completed/shed/malformed requests, batching, throughput and latency
+    public String getStats() {
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        long batchCount = batches.get();
+        return String.format("connections=%d workers=%d queued=%d completed=%d shed=%d errors=%d batches=%d "
+                        + "avgBatch=%.1f throughput=%.0f/s latency: %s",
+                openConnections.get(), workerCount, queue.size(), completed.get(), shed.get(), errors.get(),
+                batchCount, batchCount == 0 ? 0.0 : (double) completed.get() / batchCount,
+                seconds > 0 ? completed.get() / seconds : 0.0, latency);
+    }
+}
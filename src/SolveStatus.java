@@ -0,0 +1,16 @@
+// Outcome of a solve or search call
+enum SolveStatus {
+    // A solution was found
+    SOLVED,
+    // The search space was exhausted without finding a (further) solution, or the givens leave a constraint
+    // without any candidate
+    UNSOLVABLE,
+    // The givens are out of range or break the rules (a digit twice in a row, column or box); never searched
+    INVALID,
+    // The deadline passed before the search finished; the search can be continued
+    TIMED_OUT,
+    // The cancellation token was cancelled before the search finished; the search can be continued
+    CANCELLED,
+    // pause() was called before the search finished; the search can be continued
+    PAUSED
+}
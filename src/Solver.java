@@ -0,0 +1,36 @@
+// A Sudoku solving engine. Engines keep scratch state between calls, so each thread needs its own instance.
+interface Solver {
+    // Solves a puzzle
+    // @param puzzle The initial Sudoku grid, where 0 represents empty cells; not modified. RMIT_Sudoku_Solver takes
+    //               any N x N board (9x9, 16x16, 25x25), BitboardSolver only 9x9
+    // @return The solved grid (or the original puzzle if it has no solution or its givens are invalid); the engine
+    //         may reuse the returned array on the next call
+    // @throws IllegalArgumentException if the puzzle is not an N x N grid of a size the engine supports
+    int[][] solve(int[][] puzzle);
+
+    // Solves a puzzle into a grid owned by the caller, so that solving puzzle after puzzle allocates nothing
+    // @param puzzle The initial Sudoku grid, where 0 represents empty cells; not modified
+    // @param solution Grid of the puzzle's size that receives the solved grid, or the givens if there is no solution
+    // @return true if the puzzle was solved
+    default boolean solve(int[][] puzzle, int[][] solution) {
+        int[][] grid = solve(puzzle);
+        for (int i = 0; i < grid.length; i++) {
+            System.arraycopy(grid[i], 0, solution[i], 0, grid.length);
+        }
+        return Main.isValidSudoku(grid);
+    }
+
+    // Creates a new instance of an engine by name, so callers can pick the engine per run or per call
+    // @param engine "dlx" for RMIT_Sudoku_Solver, "bitboard" for BitboardSolver
+    // @return A new solver
+    static Solver create(String engine) {
+        switch (engine) {
+            case "dlx":
+                return new RMIT_Sudoku_Solver(new int[9][9]);
+            case "bitboard":
+                return new BitboardSolver();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+// One solver per engine and thread, shared by all the code running on that thread
+// Building a solver allocates its whole matrix, so code that solves puzzles one at a time (a request handler, a
+// worker task) takes the thread's solver from here instead of creating one per puzzle; with
+// Solver.solve(puzzle, solution) the steady state then allocates nothing. A pooled solver must not be held across
+// a call that may itself use the pool on the same thread, since both would share the solver's state.
+final class SolverPool {
+    private static final ThreadLocal<Solver> DLX = ThreadLocal.withInitial(() -> Solver.create("dlx"));
+    private static final ThreadLocal<Solver> BITBOARD = ThreadLocal.withInitial(() -> Solver.create("bitboard"));
+
+    private SolverPool() {
+    }
+
+    // The calling thread's solver of an engine, created on first use
+    // @param engine "dlx" or "bitboard", as for Solver.create
+    public static Solver get(String engine) {
+        switch (engine) {
+            case "dlx":
+                return DLX.get();
+            case "bitboard":
+                return BITBOARD.get();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+}
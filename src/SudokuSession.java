@@ -0,0 +1,217 @@
+import java.util.concurrent.TimeUnit;
+
+// Long-lived view of a board being filled in by a player, over one DLX matrix that is never rebuilt
+// Placing a digit selects its matrix row (covers the row's 4 columns) and removing it uncovers them again, so a
+// keystroke costs a few dozen link updates instead of a new solver. The matrix always holds the rows still
+// compatible with the board, which answers the player-facing questions directly:
+// - candidates(row, col): the rows left in the cell's column
+// - nextForcedMove(): a column with a single row left (a naked or hidden single)
+// - isSolvable(): a DLX search from the current board, cached until the board changes
+// Digits are removed in any order: cover/uncover must stay LIFO, so the digits placed after the removed one are
+// taken off and put back around it.
+// An instance belongs to one thread (one player's board).
+class SudokuSession {
+    private final int n;
+    private final DLXMatrix matrix;
+    private final DLXSearch search;
+    // Board as placed so far, 0 for empty cells
+    private final int[][] grid;
+    // Matrix rows of the placed digits, in placement order, placedCount of them
+    private final int[] placed;
+    private int placedCount;
+    // Cached answer of isSolvable(), null when the board changed since
+    private Boolean solvable;
+    // Solution found by the last isSolvable() that returned true, valid while solvable is TRUE
+    private final int[][] solution;
+
+    // Constructor: Opens a session on a puzzle; its givens are placed like any other digit
+    // @param puzzle The initial N x N grid (N = 4, 9, 16 or 25), where 0 represents empty cells
+    // @throws IllegalArgumentException if the puzzle is not N x N, or a given is out of range or conflicts
+    public SudokuSession(int[][] puzzle) {
+        PuzzleValidator.checkShape(puzzle);
+        n = puzzle.length;
+        matrix = new ArrayDancingLinks(new int[n][n]);
+        search = new DLXSearch(matrix, n * n);
+        grid = new int[n][n];
+        placed = new int[n * n];
+        solution = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (puzzle[i][j] != 0 && !place(i, j, puzzle[i][j])) {
+                    throw new IllegalArgumentException("Given " + puzzle[i][j] + " at (" + i + ", " + j
+                            + ") conflicts with an earlier given");
+                }
+            }
+        }
+    }
+
+    // Rejects a cell outside the board before it can index the grid or the matrix
+    private void checkCell(int row, int col) {
+        if (row < 0 || row >= n || col < 0 || col >= n) {
+            throw new IllegalArgumentException("Cell (" + row + ", " + col + ") is outside the " + n + "x" + n
+                    + " board");
+        }
+    }
+
+    // Matrix row of a move: (num - 1) + row * N^2 + col * N
+    private int rowNumber(int row, int col, int num) {
+        return (row * n + col) * n + num - 1;
+    }
+
+    // Places a digit in an empty cell
+    // @param row Row of the grid, 0 to N - 1
+    // @param col Column of the grid, 0 to N - 1
+    // @param num Digit, 1 to N
+    // @return false if the cell is filled or the digit is already in the cell's row, column or box; the board is
+    //         then unchanged
+    // @throws IllegalArgumentException if the cell is outside the board or the digit out of range
+    public boolean place(int row, int col, int num) {
+        checkCell(row, col);
+        if (num < 1 || num > n) {
+            throw new IllegalArgumentException("Digit out of range: " + num);
+        }
+        if (grid[row][col] != 0 || !matrix.selectRow(rowNumber(row, col, num))) {
+            return false;
+        }
+        grid[row][col] = num;
+        placed[placedCount++] = rowNumber(row, col, num);
+        solvable = null;
+        return true;
+    }
+
+    // Removes the digit of a cell
+    // Only the digits placed after it are taken off and put back, so undoing the last move is the cheapest
+    // @return The digit removed, or 0 if the cell was empty
+    public int clear(int row, int col) {
+        checkCell(row, col);
+        int num = grid[row][col];
+        if (num == 0) {
+            return 0;
+        }
+        int target = rowNumber(row, col, num);
+        int k = placedCount - 1;
+        while (placed[k] != target) {
+            k--;
+        }
+        // Uncover back to the removed digit, then put the later ones back in their order
+        for (int i = placedCount - 1; i >= k; i--) {
+            matrix.unselectRow(placed[i]);
+        }
+        for (int i = k + 1; i < placedCount; i++) {
+            matrix.selectRow(placed[i]);
+            placed[i - 1] = placed[i];
+        }
+        placedCount--;
+        grid[row][col] = 0;
+        solvable = null;
+        return num;
+    }
+
+    // Removes the most recently placed digit
+    // @return The cell and digit as {row, col, num}, or null if nothing is placed
+    public int[] undo() {
+        if (placedCount == 0) {
+            return null;
+        }
+        int[] move = decode(placed[placedCount - 1]);
+        clear(move[0], move[1]);
+        return move;
+    }
+
+    // Digits that can still go in a cell given the digits placed in its row, column and box
+    // @return A bit mask with bit num - 1 set for every candidate num; 0 for a filled cell
+    public int candidates(int row, int col) {
+        checkCell(row, col);
+        if (grid[row][col] != 0) {
+            return 0;
+        }
+        // The rows left in the cell's column are exactly its candidates
+        int c = 1 + row * n + col;
+        int mask = 0;
+        for (int r = matrix.down(c); r != c; r = matrix.down(r)) {
+            mask |= 1 << (matrix.rowNumber(r) % n);
+        }
+        return mask;
+    }
+
+    // Finds a move the board forces: a cell with one candidate left, or a digit with one place left in a row,
+    // column or box
+    // @return The move as {row, col, num}, or null if none is forced, the board is full, or some cell or digit has
+    //         no place left (the board is then unsolvable)
+    public int[] nextForcedMove() {
+        int c = matrix.getSmallestColumn();
+        if (c == DLXMatrix.ROOT || matrix.size(c) != 1) {
+            return null;
+        }
+        return decode(matrix.rowNumber(matrix.down(c)));
+    }
+
+    // Whether the board as placed so far can still be completed
+    // The answer is cached until the next place/clear, so asking again is free
+    public boolean isSolvable() {
+        return checkSolvable(DLXSearch.NO_DEADLINE) == SolveStatus.SOLVED;
+    }
+
+    // Same as isSolvable(), giving up after a timeout
+    // @return SOLVED, UNSOLVABLE or TIMED_OUT
+    public SolveStatus checkSolvable(long timeout, TimeUnit unit) {
+        return checkSolvable(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    // Searches for a completion of the board unless the answer is cached, and records the completion found
+    private SolveStatus checkSolvable(long deadlineNanos) {
+        if (solvable == null) {
+            search.reset();
+            SolveStatus status = search.run(deadlineNanos, null);
+            if (status == SolveStatus.SOLVED) {
+                for (int i = 0; i < n; i++) {
+                    System.arraycopy(grid[i], 0, solution[i], 0, n);
+                }
+                for (int k = 0; k < search.getDepth(); k++) {
+                    int[] move = decode(search.getRowNumber(k));
+                    solution[move[0]][move[1]] = move[2];
+                }
+            }
+            // Give the columns back before the next place/clear
+            search.unwind();
+            if (status == SolveStatus.TIMED_OUT) {
+                return status;
+            }
+            solvable = status == SolveStatus.SOLVED;
+        }
+        return solvable ? SolveStatus.SOLVED : SolveStatus.UNSOLVABLE;
+    }
+
+    // The digit a completion of the board has in a cell, for hints
+    // @return The digit, or 0 if the board cannot be completed
+    public int hint(int row, int col) {
+        checkCell(row, col);
+        return isSolvable() ? solution[row][col] : 0;
+    }
+
+    // Cell and digit of a matrix row as {row, col, num}
+    private int[] decode(int rowNumber) {
+        int cell = rowNumber / n;
+        return new int[]{cell / n, cell % n, rowNumber % n + 1};
+    }
+
+    // Digit placed in a cell, 0 if empty
+    public int get(int row, int col) {
+        checkCell(row, col);
+        return grid[row][col];
+    }
+
+    // Whether every cell is filled (the placed digits never conflict, so a full board is solved)
+    public boolean isComplete() {
+        return placedCount == n * n;
+    }
+
+    // Number of digits placed, givens included
+    public int getPlacedCount() {
+        return placedCount;
+    }
+
+    public int getSize() {
+        return n;
+    }
+}
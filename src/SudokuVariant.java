@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Rules of a Sudoku variant on an N x N board (N = boxSize^2), solved by VariantSudokuSolver
+// Every variant has the classic rows and columns plus N regions (the boxes, or the irregular regions of a Jigsaw
+// Sudoku), each holding every number once. On top of them:
+// - X-Sudoku: both main diagonals hold every number once
+// - Windoku: the boxSize - 1 x boxSize - 1 extra "windows" between the boxes hold every number once
+// - Killer: cages of cells whose numbers are all different and add up to the cage's sum
+// Cells are numbered row * N + column.
+class SudokuVariant {
+    private final int n;
+    private final int boxSize;
+    // Region of every cell, indexed by cell
+    private final int[] regions;
+    private boolean diagonals;
+    private boolean windows;
+    // Cells and sum of every cage, in the order they were added
+    private final List<int[]> cageCells = new ArrayList<>();
+    private final List<Integer> cageSums = new ArrayList<>();
+    // Cage of every cell, -1 for cells outside every cage
+    private final int[] cageOf;
+
+    // Constructor: Starts from the classic rules of an N x N board
+    // @param n Board size (4, 9, 16 or 25)
+    public SudokuVariant(int n) {
+        this.n = n;
+        this.boxSize = ArrayDancingLinks.boxSizeOf(n);
+        this.regions = new int[n * n];
+        this.cageOf = new int[n * n];
+        for (int cell = 0; cell < n * n; cell++) {
+            int r = cell / n;
+            int c = cell % n;
+            regions[cell] = (r / boxSize) * boxSize + (c / boxSize);
+            cageOf[cell] = -1;
+        }
+    }
+
+    // Classic Sudoku with both main diagonals as extra houses
+    public static SudokuVariant xSudoku(int n) {
+        return new SudokuVariant(n).withDiagonals();
+    }
+
+    // Classic Sudoku with the windows between the boxes as extra houses
+    public static SudokuVariant windoku(int n) {
+        return new SudokuVariant(n).withWindows();
+    }
+
+    // Sudoku whose boxes are replaced by irregular regions
+    // @param regions N x N grid of region numbers 0 to N - 1, each used by exactly N cells
+    public static SudokuVariant jigsaw(int[][] regions) {
+        return new SudokuVariant(regions.length).withRegions(regions);
+    }
+
+    // Adds both main diagonals as houses
+    // @return this
+    public SudokuVariant withDiagonals() {
+        diagonals = true;
+        return this;
+    }
+
+    // Adds the Windoku windows as houses
+    // @return this
+    public SudokuVariant withWindows() {
+        windows = true;
+        return this;
+    }
+
+    // Replaces the boxes with irregular regions
+    // @param regions N x N grid of region numbers 0 to N - 1, each used by exactly N cells
+    // @return this
+    // @throws IllegalArgumentException if the grid is the wrong size or a region does not have N cells
+    public SudokuVariant withRegions(int[][] regions) {
+        if (regions.length != n) {
+            throw new IllegalArgumentException("Expected a " + n + "x" + n + " region grid, got " + regions.length);
+        }
+        int[] counts = new int[n];
+        for (int r = 0; r < n; r++) {
+            if (regions[r].length != n) {
+                throw new IllegalArgumentException("Region grid row " + r + " has " + regions[r].length + " cells");
+            }
+            for (int c = 0; c < n; c++) {
+                int region = regions[r][c];
+                if (region < 0 || region >= n || ++counts[region] > n) {
+                    throw new IllegalArgumentException("Invalid region " + region + " at (" + r + ", " + c + ")");
+                }
+                this.regions[r * n + c] = region;
+            }
+        }
+        return this;
+    }
+
+    // Adds a Killer cage
+    // @param sum Sum of the numbers in the cage
+    // @param cells Cells of the cage (row * N + column), none of them in another cage
+    // @return this
+    // @throws IllegalArgumentException if a cell is out of range or already caged, or the cage has more than N cells
+    public SudokuVariant addCage(int sum, int... cells) {
+        if (cells.length == 0 || cells.length > n) {
+            throw new IllegalArgumentException("A cage has 1 to " + n + " cells, got " + cells.length);
+        }
+        for (int cell : cells) {
+            if (cell < 0 || cell >= n * n || cageOf[cell] != -1) {
+                throw new IllegalArgumentException("Cell " + cell + " is out of range or already in a cage");
+            }
+            cageOf[cell] = cageCells.size();
+        }
+        cageCells.add(cells.clone());
+        cageSums.add(sum);
+        return this;
+    }
+
+    // Cells of every house: rows, columns, regions, then the diagonals and windows if enabled
+    // Each house holds every number exactly once
+    int[][] houses() {
+        List<int[]> houses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int[] row = new int[n];
+            int[] column = new int[n];
+            for (int j = 0; j < n; j++) {
+                row[j] = i * n + j;
+                column[j] = j * n + i;
+            }
+            houses.add(row);
+            houses.add(column);
+        }
+        int[][] byRegion = new int[n][n];
+        int[] filled = new int[n];
+        for (int cell = 0; cell < n * n; cell++) {
+            byRegion[regions[cell]][filled[regions[cell]]++] = cell;
+        }
+        for (int[] region : byRegion) {
+            houses.add(region);
+        }
+        if (diagonals) {
+            int[] main = new int[n];
+            int[] anti = new int[n];
+            for (int i = 0; i < n; i++) {
+                main[i] = i * n + i;
+                anti[i] = i * n + (n - 1 - i);
+            }
+            houses.add(main);
+            houses.add(anti);
+        }
+        if (windows) {
+            // Windows start one cell into the board and are one cell apart, e.g. at rows/columns 1 and 5 on 9x9
+            for (int wr = 0; wr < boxSize - 1; wr++) {
+                for (int wc = 0; wc < boxSize - 1; wc++) {
+                    int[] window = new int[n];
+                    int k = 0;
+                    for (int r = 0; r < boxSize; r++) {
+                        for (int c = 0; c < boxSize; c++) {
+                            window[k++] = (1 + wr * (boxSize + 1) + r) * n + 1 + wc * (boxSize + 1) + c;
+                        }
+                    }
+                    houses.add(window);
+                }
+            }
+        }
+        return houses.toArray(new int[0][]);
+    }
+
+    public int getSize() {
+        return n;
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    public int getCageCount() {
+        return cageCells.size();
+    }
+
+    // Cells of a cage
+    int[] getCageCells(int cage) {
+        return cageCells.get(cage);
+    }
+
+    public int getCageSum(int cage) {
+        return cageSums.get(cage);
+    }
+
+    // Cage of a cell, or -1 if the cell is in no cage
+    int getCage(int cell) {
+        return cageOf[cell];
+    }
+}
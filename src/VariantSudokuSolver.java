@@ -0,0 +1,316 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Solves Sudoku variants (X-Sudoku, Windoku, Jigsaw, Killer and their combinations) as exact-cover problems
+// The matrix is built once per variant with ExactCoverBuilder and searched by ExactCoverSolver, so the variants
+// run on the same ArrayDancingLinks cover/uncover core as the classic solver. Columns:
+// - one primary column per cell (every cell holds exactly one number)
+// - one primary column per house and number (every house of the SudokuVariant holds every number once)
+// - one primary column per Killer cage. The rows of a small cage are its fillings: every assignment of different
+//   numbers to its cells that adds up to the sum. A large cage (more than MAX_ENUMERATED_CELLS cells, too many
+//   fillings to list) has one row per set of numbers with the right sum instead, plus N secondary columns, one
+//   per number: the cage's cells cover the column of their number and the chosen set covers the columns of the
+//   numbers it leaves out, so the cells hold exactly the numbers of the set.
+// Cells outside the small cages have one row per number, like the classic matrix. Every rule, sums included, is
+// enforced by the matrix itself.
+// Like every Solver an instance belongs to one thread; the matrix is reused for every puzzle of the variant.
+class VariantSudokuSolver implements Solver {
+    // Largest cage whose fillings become matrix rows (at most 9 * 8 * 7 * 6 * 5 = 15120 of them on 9x9); larger
+    // cages get one row per set of numbers
+    static final int MAX_ENUMERATED_CELLS = 5;
+
+    private final SudokuVariant variant;
+    private final int n;
+    private final ExactCoverSolver solver;
+    // Row of the matrix placing number d + 1 in a cell outside the small cages, at index cell * N + d
+    private final int[] cellRows;
+    // Rows of the small cage a cell belongs to, indexed by cell (null outside small cages)
+    private final int[][] cageRows;
+    // Placements of every row, encoded as cell * N + d, from placementOffsets[row] to placementOffsets[row + 1]
+    private final int[] placements;
+    private final int[] placementOffsets;
+    // Cells of every house, then of every cage: no number may be given twice in one of them
+    private final int[][] units;
+    // Grid returned by solve(), reused by the next call
+    private final int[][] result;
+    // Outcome of the last solve() call, null before the first one
+    private SolveStatus status;
+
+    // Constructor: Builds the exact-cover matrix of a variant
+    // @param variant The rules; later changes to it are not seen by this solver
+    public VariantSudokuSolver(SudokuVariant variant) {
+        this.variant = variant;
+        this.n = variant.getSize();
+        int cells = n * n;
+        int[][] houses = variant.houses();
+        // Houses of every cell
+        int[][] housesOf = new int[cells][];
+        int[] houseCount = new int[cells];
+        for (int[] house : houses) {
+            for (int cell : house) {
+                houseCount[cell]++;
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            housesOf[cell] = new int[houseCount[cell]];
+            houseCount[cell] = 0;
+        }
+        for (int h = 0; h < houses.length; h++) {
+            for (int cell : houses[h]) {
+                housesOf[cell][houseCount[cell]++] = h;
+            }
+        }
+
+        // Number the secondary columns of the large cages
+        int largeCount = 0;
+        int[] largeIndex = new int[variant.getCageCount()];
+        for (int k = 0; k < variant.getCageCount(); k++) {
+            largeIndex[k] = variant.getCageCells(k).length > MAX_ENUMERATED_CELLS ? largeCount++ : -1;
+        }
+        int houseBase = cells;
+        int cageBase = houseBase + houses.length * n;
+        int primary = cageBase + variant.getCageCount();
+        ExactCoverBuilder builder = new ExactCoverBuilder(primary, largeCount * n);
+        List<Integer> rowPlacements = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        offsets.add(0);
+
+        // One row per number for the cells outside the small cages
+        cellRows = new int[cells * n];
+        Arrays.fill(cellRows, -1);
+        for (int cell = 0; cell < cells; cell++) {
+            int cage = variant.getCage(cell);
+            if (cage != -1 && largeIndex[cage] == -1) {
+                continue;
+            }
+            for (int d = 0; d < n; d++) {
+                int[] columns = new int[1 + housesOf[cell].length + (cage != -1 ? 1 : 0)];
+                int k = 0;
+                columns[k++] = cell;
+                for (int h : housesOf[cell]) {
+                    columns[k++] = houseBase + h * n + d;
+                }
+                if (cage != -1) {
+                    columns[k] = primary + largeIndex[cage] * n + d;
+                }
+                cellRows[cell * n + d] = builder.addRow(columns);
+                rowPlacements.add(cell * n + d);
+                offsets.add(rowPlacements.size());
+            }
+        }
+
+        // One row per filling of each small cage, one per set of numbers of each large cage
+        cageRows = new int[cells][];
+        for (int k = 0; k < variant.getCageCount(); k++) {
+            int[] cage = variant.getCageCells(k);
+            int cageColumn = cageBase + k;
+            if (largeIndex[k] != -1) {
+                int base = primary + largeIndex[k] * n;
+                enumerateSets(cage.length, variant.getCageSum(k), 0, 0, set -> {
+                    int[] columns = new int[1 + n - cage.length];
+                    int c = 0;
+                    columns[c++] = cageColumn;
+                    for (int d = 0; d < n; d++) {
+                        if ((set & (1 << d)) == 0) {
+                            columns[c++] = base + d;
+                        }
+                    }
+                    builder.addRow(columns);
+                    // Places no number
+                    offsets.add(rowPlacements.size());
+                });
+                continue;
+            }
+            // Columns of a filling: the cage, then each cell and its houses for the cell's number
+            int length = 1;
+            for (int cell : cage) {
+                length += 1 + housesOf[cell].length;
+            }
+            int[] columns = new int[length];
+            columns[0] = cageColumn;
+            int first = builder.getRowCount();
+            enumerateFillings(cage, 0, variant.getCageSum(k), new int[cage.length], 0, filling -> {
+                int c = 1;
+                for (int i = 0; i < cage.length; i++) {
+                    int cell = cage[i];
+                    columns[c++] = cell;
+                    for (int h : housesOf[cell]) {
+                        columns[c++] = houseBase + h * n + filling[i];
+                    }
+                    rowPlacements.add(cell * n + filling[i]);
+                }
+                builder.addRow(columns);
+                offsets.add(rowPlacements.size());
+            });
+            int[] rows = new int[builder.getRowCount() - first];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = first + i;
+            }
+            for (int cell : cage) {
+                cageRows[cell] = rows;
+            }
+        }
+        placements = rowPlacements.stream().mapToInt(Integer::intValue).toArray();
+        placementOffsets = offsets.stream().mapToInt(Integer::intValue).toArray();
+
+        // A solution has at most one row per cell plus one set row per large cage; a box or region meets a line in
+        // at most boxSize cells, as for the classic presolve
+        solver = new ExactCoverSolver(builder.build(), cells + largeCount, variant.getBoxSize());
+        result = new int[n][n];
+        units = new int[houses.length + variant.getCageCount()][];
+        System.arraycopy(houses, 0, units, 0, houses.length);
+        for (int k = 0; k < variant.getCageCount(); k++) {
+            units[houses.length + k] = variant.getCageCells(k);
+        }
+    }
+
+    // Receives each filling of a cage found by enumerateFillings
+    private interface FillingConsumer {
+        void accept(int[] filling);
+    }
+
+    // Receives each set of numbers found by enumerateSets
+    private interface SetConsumer {
+        void accept(int set);
+    }
+
+    // Enumerates the sets of count different numbers, all at least from + 1, that add up to the remaining sum
+    // @param set Bit mask of the numbers already chosen (bit d for number d + 1)
+    private void enumerateSets(int count, int remaining, int from, int set, SetConsumer consumer) {
+        if (count == 0) {
+            if (remaining == 0) {
+                consumer.accept(set);
+            }
+            return;
+        }
+        for (int d = from; d < n && d + 1 <= remaining; d++) {
+            enumerateSets(count - 1, remaining - (d + 1), d + 1, set | (1 << d), consumer);
+        }
+    }
+
+    // Enumerates the assignments of different numbers (0-based) to the cells of a cage from index i on that add up
+    // to the remaining sum (1-based numbers)
+    // @param used Bit mask of the numbers already assigned to cells 0 to i - 1
+    private void enumerateFillings(int[] cage, int i, int remaining, int[] filling, int used,
+                                   FillingConsumer consumer) {
+        if (i == cage.length) {
+            if (remaining == 0) {
+                consumer.accept(filling);
+            }
+            return;
+        }
+        for (int d = 0; d < n && d + 1 <= remaining; d++) {
+            if ((used & (1 << d)) == 0) {
+                filling[i] = d;
+                enumerateFillings(cage, i + 1, remaining - (d + 1), filling, used | (1 << d), consumer);
+            }
+        }
+    }
+
+    // Solves a puzzle of the variant; getStatus() tells a solution from an unsolvable or invalid puzzle
+    // @param puzzle The N x N grid of givens, where 0 represents empty cells; not modified
+    // @return The solved grid (or the original puzzle if there is no solution or its givens are invalid); reused
+    //         by the next call
+    // @throws IllegalArgumentException if the puzzle is not an N x N grid of the variant's size
+    @Override
+    public int[][] solve(int[][] puzzle) {
+        boolean loaded = load(puzzle);
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(puzzle[i], 0, result[i], 0, n);
+        }
+        status = loaded ? SolveStatus.UNSOLVABLE : SolveStatus.INVALID;
+        if (loaded) {
+            solver.forEachSolution((rows, count) -> {
+                status = SolveStatus.SOLVED;
+                for (int k = 0; k < count; k++) {
+                    for (int p = placementOffsets[rows[k]]; p < placementOffsets[rows[k] + 1]; p++) {
+                        result[placements[p] / n / n][placements[p] / n % n] = placements[p] % n + 1;
+                    }
+                }
+                return false;
+            });
+        }
+        return result;
+    }
+
+    // Counts the solutions of a puzzle of the variant, stopping as soon as limit solutions have been found
+    // @param puzzle The N x N grid of givens, where 0 represents empty cells
+    // @param limit Maximum number of solutions to count (2 is enough to tell unique from ambiguous)
+    // @return The number of solutions, at most limit; 0 if the givens are invalid
+    public long countSolutions(int[][] puzzle, long limit) {
+        if (!load(puzzle)) {
+            return 0;
+        }
+        return solver.countSolutions(limit);
+    }
+
+    // Resets the matrix and applies the givens: the row of a given is selected, or for a cell in a small cage the
+    // fillings that disagree with it are excluded
+    // Givens outside 0 to N, or a number given twice in one house or cage, are rejected before the matrix is
+    // touched: a given in a small cage only excludes fillings, so the matrix alone would report such a clash as
+    // unsolvable rather than invalid
+    // @return false if a given is out of range or the givens conflict
+    private boolean load(int[][] puzzle) {
+        PuzzleValidator.checkShape(puzzle);
+        if (puzzle.length != n) {
+            throw new IllegalArgumentException("Expected a " + n + "x" + n + " grid, got " + puzzle.length);
+        }
+        if (!PuzzleValidator.hasGivensInRange(puzzle) || !hasDistinctGivens(puzzle)) {
+            return false;
+        }
+        solver.reset();
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                int d = puzzle[r][c] - 1;
+                if (d < 0) {
+                    continue;
+                }
+                int cell = r * n + c;
+                if (cageRows[cell] == null) {
+                    if (!solver.select(cellRows[cell * n + d])) {
+                        return false;
+                    }
+                    continue;
+                }
+                for (int row : cageRows[cell]) {
+                    for (int p = placementOffsets[row]; p < placementOffsets[row + 1]; p++) {
+                        if (placements[p] / n == cell && placements[p] % n != d) {
+                            solver.exclude(row);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // Checks that no number is given twice in a house or cage of the variant
+    // Expects givens in range, as checked by PuzzleValidator.hasGivensInRange
+    private boolean hasDistinctGivens(int[][] puzzle) {
+        for (int[] unit : units) {
+            int seen = 0;
+            for (int cell : unit) {
+                int value = puzzle[cell / n][cell % n];
+                if (value == 0) {
+                    continue;
+                }
+                int bit = 1 << value;
+                if ((seen & bit) != 0) {
+                    return false;
+                }
+                seen |= bit;
+            }
+        }
+        return true;
+    }
+
+    // Outcome of the last solve(): SOLVED, UNSOLVABLE, or INVALID for out-of-range or conflicting givens
+    public SolveStatus getStatus() {
+        return status;
+    }
+
+    public SudokuVariant getVariant() {
+        return variant;
+    }
+}